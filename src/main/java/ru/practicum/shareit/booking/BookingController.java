@@ -1,9 +1,16 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoExtended;
+import ru.practicum.shareit.booking.service.BookingOwnerStream;
 import ru.practicum.shareit.booking.service.BookingService;
 
 import javax.validation.Valid;
@@ -14,12 +21,23 @@ import java.util.List;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingOwnerStream bookingOwnerStream;
 
     @PostMapping()
     public BookingDtoExtended add(@RequestHeader("X-Sharer-User-Id") Integer userId, @RequestBody @Valid BookingDto bookingDto) {
         return bookingService.add(bookingDto, userId);
     }
 
+    @PostMapping(path = "/batch")
+    public List<BookingBatchResultDto> addAll(@RequestHeader("X-Sharer-User-Id") Integer userId, @RequestBody List<BookingDto> bookingDtos) {
+        return bookingService.addAll(bookingDtos, userId);
+    }
+
+    @PatchMapping(path = "/approve")
+    public List<Integer> approveAll(@RequestHeader("X-Sharer-User-Id") Integer userId, @RequestParam(name = "approved") Boolean approved, @RequestBody List<Integer> bookingIds) {
+        return bookingService.approveAll(bookingIds, approved, userId);
+    }
+
     @PatchMapping(path = "/{bookingId}")
     public BookingDtoExtended approve(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable(name = "bookingId") Integer bookingId, @RequestParam(name = "approved") Boolean approved) {
         return bookingService.approve(bookingId, approved, userId);
@@ -31,18 +49,56 @@ public class BookingController {
     }
 
     @GetMapping()
-    public List<BookingDtoExtended> getAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                           @RequestParam(name = "state", defaultValue = "ALL") String state,
-                                           @RequestParam(name = "from", required = false) Integer from,
-                                           @RequestParam(name = "size", required = false) Integer size) {
-        return bookingService.getAllByUserId(userId, state, from, size);
+    public ResponseEntity<List<BookingDtoExtended>> getAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                           @RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                           @RequestParam(name = "from", required = false) Integer from,
+                                                           @RequestParam(name = "size", required = false) Integer size,
+                                                           @RequestParam(name = "cursor", required = false) String cursor) {
+        if (cursor != null)
+            return bookingService.getPageByUserId(userId, state, cursor, size).toResponse();
+        return ResponseEntity.ok(bookingService.getAllByUserId(userId, state, from, size));
     }
 
     @GetMapping(path = "/owner")
-    public List<BookingDtoExtended> getAllForItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                                   @RequestParam(name = "state", defaultValue = "ALL") String state,
-                                                   @RequestParam(name = "from", required = false) Integer from,
-                                                   @RequestParam(name = "size", required = false) Integer size) {
-        return bookingService.getAllForItems(userId, state, from, size);
+    public ResponseEntity<List<BookingDtoExtended>> getAllForItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                                   @RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                                   @RequestParam(name = "from", required = false) Integer from,
+                                                                   @RequestParam(name = "size", required = false) Integer size,
+                                                                   @RequestParam(name = "cursor", required = false) String cursor) {
+        if (cursor != null)
+            return bookingService.getPageForItems(userId, state, cursor, size).toResponse();
+        return ResponseEntity.ok(bookingService.getAllForItems(userId, state, from, size));
+    }
+
+    @GetMapping(path = "/counts")
+    public BookingCountsDto getCounts(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        return bookingService.getCountsByUserId(userId);
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamForItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                     @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return bookingOwnerStream.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping(path = "/owner/counts")
+    public BookingCountsDto getCountsForItems(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        return bookingService.getCountsForItems(userId);
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                        @RequestParam(name = "state", defaultValue = "ALL") String state) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingService.exportByUserId(userId, state));
+    }
+
+    @GetMapping(path = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportForItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                                @RequestParam(name = "state", defaultValue = "ALL") String state) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingService.exportForItems(userId, state));
     }
 }
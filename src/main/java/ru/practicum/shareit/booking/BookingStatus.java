@@ -4,7 +4,8 @@ public enum BookingStatus {
     WAITING("Новое бронирование, ожидает одобрения"),
     APPROVED("Бронирование подтверждено владельцем"),
     REJECTED("Бронирование отклонено владельцем"),
-    CANCELED("Бронирование отменено создателем");
+    CANCELED("Бронирование отменено создателем"),
+    EXPIRED("Бронирование истекло без ответа владельца");
     private final String value;
 
     BookingStatus(String value) {
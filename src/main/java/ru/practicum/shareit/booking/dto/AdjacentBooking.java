@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+//Ближайшее к текущему моменту подтверждённое бронирование вещи: последнее начавшееся или следующее
+@Data
+@AllArgsConstructor
+public class AdjacentBooking {
+    private Kind kind;
+    private Integer id;
+    private Integer itemId;
+    private Integer bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    public enum Kind {
+        LAST,
+        NEXT
+    }
+}
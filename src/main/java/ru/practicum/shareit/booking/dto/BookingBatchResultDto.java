@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BookingBatchResultDto {
+    private Integer index;
+    private BookingDtoExtended booking;
+    private String error;
+
+    public BookingBatchResultDto(@JsonProperty("index") Integer index,
+                                 @JsonProperty("booking") BookingDtoExtended booking,
+                                 @JsonProperty("error") String error) {
+        this.index = index;
+        this.booking = booking;
+        this.error = error;
+    }
+}
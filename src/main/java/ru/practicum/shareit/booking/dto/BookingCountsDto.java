@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+public class BookingCountsDto {
+    private long all;
+    private long current;
+    private long past;
+    private long future;
+    private long waiting;
+    private long rejected;
+
+    //sum() по пустой выборке возвращает null
+    public BookingCountsDto(@JsonProperty("all") Long all,
+                            @JsonProperty("current") Long current,
+                            @JsonProperty("past") Long past,
+                            @JsonProperty("future") Long future,
+                            @JsonProperty("waiting") Long waiting,
+                            @JsonProperty("rejected") Long rejected) {
+        this.all = all != null ? all : 0;
+        this.current = current != null ? current : 0;
+        this.past = past != null ? past : 0;
+        this.future = future != null ? future : 0;
+        this.waiting = waiting != null ? waiting : 0;
+        this.rejected = rejected != null ? rejected : 0;
+    }
+}
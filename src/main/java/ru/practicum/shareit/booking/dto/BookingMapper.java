@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.dto;
 
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
@@ -20,6 +21,39 @@ public class BookingMapper {
                 .build();
     }
 
+    public BookingDtoExtended toOutDto(BookingRow row) {
+        return BookingDtoExtended.builder()
+                .id(row.getId())
+                .start(row.getStart())
+                .end(row.getEnd())
+                .item(ItemDto.builder()
+                        .id(row.getItemId())
+                        .name(row.getItemName())
+                        .description(row.getItemDescription())
+                        .available(row.getItemAvailable())
+                        .ownerId(row.getOwnerId())
+                        .requestId(row.getRequestId())
+                        .build())
+                .booker(UserDto.builder()
+                        .id(row.getBookerId())
+                        .name(row.getBookerName())
+                        .email(row.getBookerEmail())
+                        .build())
+                .status(row.getStatus())
+                .build();
+    }
+
+    public BookingDto toInDto(AdjacentBooking booking) {
+        return BookingDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .itemId(booking.getItemId())
+                .bookerId(booking.getBookerId())
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+
     public BookingDto toInDto(Booking booking) {
         return BookingDto.builder()
                 .id(booking.getId())
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+//Плоская строка списка бронирований: только поля BookingDtoExtended, без загрузки сущностей
+@Data
+@AllArgsConstructor
+public class BookingRow {
+    private Integer id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+    private Integer itemId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Integer ownerId;
+    private Integer requestId;
+    private Integer bookerId;
+    private String bookerName;
+    private String bookerEmail;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.BookingStatus;
+
+//Публикуется при создании бронирования и при каждой смене его статуса
+@Data
+@AllArgsConstructor
+public class BookingChangedEvent {
+    private Integer bookingId;
+    private Integer itemId;
+    private Integer ownerId;
+    private BookingStatus status;
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.dto.BookingStatusDto;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+
+//Все поля, кроме state и now, необязательны: незаданное поле не ограничивает выборку
+@Data
+@Builder
+public class BookingFilter {
+    private Role role;
+    private User user;
+    @Builder.Default
+    private BookingStatusDto state = BookingStatusDto.ALL;
+    private LocalDateTime now;
+    private Integer itemId;
+    //Бронирования, пересекающиеся с периодом [rangeStart, rangeEnd)
+    private LocalDateTime rangeStart;
+    private LocalDateTime rangeEnd;
+
+    public enum Role {
+        BOOKER,
+        OWNER
+    }
+}
@@ -3,56 +3,88 @@ package ru.practicum.shareit.booking.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingRepositoryCustom {
     Page<Booking> findAllByBooker(User booker, Pageable pageable);
 
-    Page<Booking> findAllByBookerAndStartIsBeforeAndEndIsAfter(User booker, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    Page<Booking> findAllByBookerAndEndIsBefore(User booker, LocalDateTime end, Pageable pageable);
-
-    Page<Booking> findAllByBookerAndStartIsAfter(User booker, LocalDateTime end, Pageable pageable);
-
-    Page<Booking> findAllByBookerAndStatus(User booker, BookingStatus status, Pageable pageable);
-
-    Booking findFirstByItemAndStatusAndStartIsAfterOrderByStart(Item item, BookingStatus status, LocalDateTime now);
-
-    Booking findFirstByItemAndStatusAndStartIsBeforeOrderByEndDesc(Item item, BookingStatus approved, LocalDateTime now);
-
     List<Booking> findAllByItemAndBookerAndStatusAndEndIsBefore(Item item, User author, BookingStatus approved, LocalDateTime now);
 
-    List<Booking> findAllByItemInOrderByStartDesc(List<Item> items);
-
-    @Query(" from Booking b" +
-            " where b.item.owner = :owner")
-    Page<Booking> findAllByItemOwner(User owner, Pageable pageable);
-
-    @Query(" from Booking b" +
-            " where b.item.owner = :owner" +
+    @Query("select new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end)" +
+            " from Booking b" +
+            " where b.status in :statuses" +
+            " and b.end > :now" +
+            " order by b.item.id, b.start")
+    List<BookingPeriod> findAllPeriodsByStatusInAndEndIsAfter(List<BookingStatus> statuses, LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingCountsDto(count(b)," +
+            " sum(case when b.start < :now and b.end > :now then 1 else 0 end)," +
+            " sum(case when b.end < :now then 1 else 0 end)," +
+            " sum(case when b.start > :now then 1 else 0 end)," +
+            " sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.WAITING then 1 else 0 end)," +
+            " sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.REJECTED then 1 else 0 end))" +
+            " from Booking b" +
+            " where b.booker.id = :bookerId")
+    BookingCountsDto countByBooker(Integer bookerId, LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingCountsDto(count(b)," +
+            " sum(case when b.start < :now and b.end > :now then 1 else 0 end)," +
+            " sum(case when b.end < :now then 1 else 0 end)," +
+            " sum(case when b.start > :now then 1 else 0 end)," +
+            " sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.WAITING then 1 else 0 end)," +
+            " sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.REJECTED then 1 else 0 end))" +
+            " from Booking b" +
+            " where b.item.owner.id = :ownerId")
+    BookingCountsDto countByItemOwner(Integer ownerId, LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end)" +
+            " from Booking b" +
+            " where b.item.id = :itemId" +
+            " and b.status in :statuses" +
+            " and b.end > :from" +
+            " and b.start < :to" +
+            " order by b.start")
+    List<BookingPeriod> findAllPeriodsByItemInRange(Integer itemId, List<BookingStatus> statuses, LocalDateTime from, LocalDateTime to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end)" +
+            " from Booking b" +
+            " where b.id in :ids" +
+            " and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING" +
+            " and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    List<BookingPeriod> findAllWaitingForUpdate(List<Integer> ids, Integer ownerId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking b set b.status = :status" +
+            " where b.id in :ids" +
+            " and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING" +
+            " and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    int updateWaitingStatus(List<Integer> ids, Integer ownerId, BookingStatus status);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking b set b.status = ru.practicum.shareit.booking.BookingStatus.EXPIRED" +
+            " where b.id in :ids" +
+            " and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING" +
+            " and b.start < :now")
+    int expireWaiting(List<Integer> ids, LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.start, b.end)" +
+            " from Booking b" +
+            " where b.status = ru.practicum.shareit.booking.BookingStatus.WAITING" +
             " and b.start < :now" +
-            " and b.end > :now")
-    Page<Booking> findAllByItemOwnerCurrent(User owner, LocalDateTime now, Pageable pageable);
-
-    @Query(" from Booking b" +
-            " where b.item.owner = :owner" +
-            " and b.end < :now")
-    Page<Booking> findAllByItemOwnerPast(User owner, LocalDateTime now, Pageable pageable);
-
-    @Query(" from Booking b" +
-            " where b.item.owner = :owner" +
-            " and b.start > :now")
-    Page<Booking> findAllByItemOwnerFuture(User owner, LocalDateTime now, Pageable pageable);
-
-    @Query(" from Booking b" +
-            " where b.item.owner = :owner" +
-            " and b.status = :status")
-    Page<Booking> findAllByItemOwnerByStatus(User owner, BookingStatus status, Pageable pageable);
+            " order by b.start")
+    List<BookingPeriod> findAllStaleWaitingForUpdate(LocalDateTime now, Pageable pageable);
 }
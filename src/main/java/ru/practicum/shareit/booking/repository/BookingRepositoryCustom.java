@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.AdjacentBooking;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.pagination.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingRepositoryCustom {
+    List<BookingRow> findRowsByFilter(BookingFilter filter, Pageable pageable);
+
+    List<BookingRow> findRowsByFilter(BookingFilter filter, Cursor after, int limit);
+
+    Stream<BookingRow> streamRowsByFilter(BookingFilter filter, int fetchSize);
+
+    void insertAll(List<Booking> bookings);
+
+    List<AdjacentBooking> findAdjacentApproved(List<Integer> itemIds, LocalDateTime now);
+}
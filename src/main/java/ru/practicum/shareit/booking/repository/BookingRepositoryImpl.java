@@ -0,0 +1,180 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.AdjacentBooking;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+//Единый запрос списков бронирований: результат сразу собирается в BookingRow,
+//поэтому сущности не загружаются и не попадают в контекст персистентности
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+    private static final String INSERT_BOOKING = "INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) VALUES (?, ?, ?, ?, ?)";
+    //Не более одной строки каждого вида на вещь: окно по item_id вместо выборки всех бронирований вещей
+    private static final String SELECT_ADJACENT_APPROVED = "SELECT t.kind, t.id, t.item_id, t.booker_id, t.start_date, t.end_date FROM (" +
+            " SELECT 'NEXT' AS kind, b.id, b.item_id, b.booker_id, b.start_date, b.end_date," +
+            " ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date, b.id) AS rn" +
+            " FROM bookings b WHERE b.item_id IN (:itemIds) AND b.status = 'APPROVED' AND b.start_date > :now" +
+            " UNION ALL" +
+            " SELECT 'LAST' AS kind, b.id, b.item_id, b.booker_id, b.start_date, b.end_date," +
+            " ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.end_date DESC, b.id DESC) AS rn" +
+            " FROM bookings b WHERE b.item_id IN (:itemIds) AND b.status = 'APPROVED' AND b.start_date < :now" +
+            ") t WHERE t.rn = 1";
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingRow> findRowsByFilter(BookingFilter filter, Pageable pageable) {
+        TypedQuery<BookingRow> query = entityManager.createQuery(createQuery(filter, null));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<BookingRow> findRowsByFilter(BookingFilter filter, Cursor after, int limit) {
+        return entityManager.createQuery(createQuery(filter, after))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<BookingRow> streamRowsByFilter(BookingFilter filter, int fetchSize) {
+        return entityManager.createQuery(createQuery(filter, null))
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<AdjacentBooking> findAdjacentApproved(List<Integer> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty())
+            return new ArrayList<>();
+        List<Object[]> rows = entityManager.createNativeQuery(SELECT_ADJACENT_APPROVED)
+                .setParameter("itemIds", itemIds)
+                .setParameter("now", now)
+                .getResultList();
+        List<AdjacentBooking> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows)
+            result.add(new AdjacentBooking(AdjacentBooking.Kind.valueOf(row[0].toString().trim()),
+                    ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(),
+                    ((Number) row[3]).intValue(),
+                    ((Timestamp) row[4]).toLocalDateTime(),
+                    ((Timestamp) row[5]).toLocalDateTime()));
+        return result;
+    }
+
+    //Пакетная вставка одним executeBatch: Hibernate не группирует вставки при генерации ключей IDENTITY
+    @Override
+    public void insertAll(List<Booking> bookings) {
+        if (bookings.isEmpty())
+            return;
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_BOOKING, new String[]{"id"})) {
+                for (Booking booking : bookings) {
+                    statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                    statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                    statement.setInt(3, booking.getItem().getId());
+                    statement.setInt(4, booking.getBooker().getId());
+                    statement.setString(5, booking.getStatus().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Booking booking : bookings) {
+                        if (!keys.next())
+                            throw new SQLException("Не получены идентификаторы вставленных бронирований");
+                        booking.setId(keys.getInt(1));
+                    }
+                }
+            }
+        });
+    }
+
+    private CriteriaQuery<BookingRow> createQuery(BookingFilter filter, Cursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingRow> query = cb.createQuery(BookingRow.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item");
+        Join<Item, Request> request = item.join("request", JoinType.LEFT);
+        Join<Booking, User> booker = booking.join("booker");
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getRole() == BookingFilter.Role.BOOKER)
+            predicates.add(cb.equal(booker.get("id"), filter.getUser().getId()));
+        else if (filter.getRole() == BookingFilter.Role.OWNER)
+            predicates.add(cb.equal(item.get("owner").get("id"), filter.getUser().getId()));
+        if (filter.getItemId() != null)
+            predicates.add(cb.equal(item.get("id"), filter.getItemId()));
+        if (filter.getRangeStart() != null)
+            predicates.add(cb.greaterThan(booking.<LocalDateTime>get("end"), filter.getRangeStart()));
+        if (filter.getRangeEnd() != null)
+            predicates.add(cb.lessThan(booking.<LocalDateTime>get("start"), filter.getRangeEnd()));
+        switch (filter.getState()) {
+            case CURRENT:
+                predicates.add(cb.lessThan(booking.<LocalDateTime>get("start"), filter.getNow()));
+                predicates.add(cb.greaterThan(booking.<LocalDateTime>get("end"), filter.getNow()));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(booking.<LocalDateTime>get("end"), filter.getNow()));
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(booking.<LocalDateTime>get("start"), filter.getNow()));
+                break;
+            case WAITING:
+                predicates.add(cb.equal(booking.get("status"), BookingStatus.WAITING));
+                break;
+            case REJECTED:
+                predicates.add(cb.equal(booking.get("status"), BookingStatus.REJECTED));
+                break;
+            default:
+                break;
+        }
+        if (after != null)
+            predicates.add(cb.or(cb.lessThan(booking.<LocalDateTime>get("start"), after.getTimestamp()),
+                    cb.and(cb.equal(booking.<LocalDateTime>get("start"), after.getTimestamp()), cb.lessThan(booking.<Integer>get("id"), after.getId()))));
+        return query.select(cb.construct(BookingRow.class,
+                        booking.get("id"),
+                        booking.get("start"),
+                        booking.get("end"),
+                        booking.get("status"),
+                        item.get("id"),
+                        item.get("name"),
+                        item.get("description"),
+                        item.get("available"),
+                        item.get("owner").get("id"),
+                        request.get("id"),
+                        booker.get("id"),
+                        booker.get("name"),
+                        booker.get("email")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.<LocalDateTime>get("start")), cb.desc(booking.<Integer>get("id")));
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//Бронирования, не подтверждённые владельцем до начала, переводятся в EXPIRED порциями по chunkSize строк:
+//каждая порция - отдельная короткая транзакция, поэтому блокировки не держатся дольше одного UPDATE
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.expiry.enabled", havingValue = "true")
+@Slf4j
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter expiredCounter;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final int chunkSize;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingIntervalIndex bookingIntervalIndex,
+                            ItemRepository itemRepository,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.bookings.expiry.chunk-size:500}") int chunkSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.expiredCounter = Counter.builder("shareit.bookings.expired")
+                .description("Бронирования, переведённые в EXPIRED")
+                .register(meterRegistry);
+        Gauge.builder("shareit.bookings.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Задержка истечения самого старого необработанного бронирования")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry.delay:60000}", initialDelayString = "${shareit.bookings.expiry.delay:60000}")
+    public void expire() {
+        LocalDateTime now = LocalDateTime.now();
+        long lag = 0;
+        int total = 0;
+        List<BookingPeriod> periods;
+        do {
+            periods = transactionTemplate.execute(status -> expireChunk(now));
+            if (periods == null || periods.isEmpty())
+                break;
+            if (total == 0)
+                lag = Duration.between(periods.get(0).getStart(), now).getSeconds();
+            total += periods.size();
+        } while (periods.size() == chunkSize);
+        lagSeconds.set(lag);
+        if (total > 0)
+            log.info("Истекло неподтверждённых бронирований: {}, задержка {} с", total, lag);
+    }
+
+    private List<BookingPeriod> expireChunk(LocalDateTime now) {
+        List<BookingPeriod> periods = bookingRepository.findAllStaleWaitingForUpdate(now, PageRequest.of(0, chunkSize));
+        if (periods.isEmpty())
+            return periods;
+        List<Integer> ids = periods.stream()
+                .map(BookingPeriod::getId)
+                .collect(Collectors.toList());
+        bookingRepository.expireWaiting(ids, now);
+        //Владельцы вещей - одним запросом на порцию: блокирующая выборка бронирований не соединяется с вещами
+        Map<Integer, Integer> owners = itemRepository.findAllDtoByIdIn(periods.stream()
+                        .map(BookingPeriod::getItemId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(ItemDto::getId, ItemDto::getOwnerId));
+        periods.forEach(period -> {
+            bookingIntervalIndex.release(period.getItemId(), period.getStart(), period.getEnd());
+            eventPublisher.publishEvent(new BookingChangedEvent(period.getId(), period.getItemId(),
+                    owners.get(period.getItemId()), BookingStatus.EXPIRED));
+        });
+        expiredCounter.increment(periods.size());
+        return periods;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDtoExtended;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.repository.BookingFilter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+//Выгрузка бронирований в NDJSON: строки читаются курсором по fetchSize штук и сразу пишутся в ответ,
+//поэтому расход памяти не зависит от числа бронирований
+@Component
+@Slf4j
+public class BookingExporter {
+    private final BookingRepository bookingRepository;
+    private final BookingMapper bookingMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+    private final int fetchSize;
+
+    public BookingExporter(BookingRepository bookingRepository,
+                           BookingMapper bookingMapper,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           @Value("${shareit.bookings.export-fetch-size:500}") int fetchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingMapper = bookingMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writerFor(BookingDtoExtended.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+    }
+
+    public StreamingResponseBody export(BookingFilter filter) {
+        return out -> transactionTemplate.executeWithoutResult(status -> write(filter, out));
+    }
+
+    private void write(BookingFilter filter, OutputStream out) {
+        long count = 0;
+        try (Stream<BookingRow> rows = bookingRepository.streamRowsByFilter(filter, fetchSize);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<BookingRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                objectWriter.writeValue(generator, bookingMapper.toOutDto(iterator.next()));
+                generator.writeRaw('\n');
+                count++;
+            }
+        } catch (IOException e) {
+            log.error("Ошибка выгрузки бронирований после {} строк: {}", count, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        log.info("Выгружено бронирований: {}", count);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.TransactionCallbacks;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Интервалы активных бронирований по вещам не пересекаются, поэтому для проверки конфликта
+//достаточно соседних по времени начала интервалов: O(log n) вместо запроса к БД.
+//Окончательную гарантию даёт ограничение ex_bookings_item_period в schema-postgresql.sql.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingIntervalIndex {
+    public static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private final BookingRepository bookingRepository;
+    private final Map<Integer, NavigableMap<LocalDateTime, Reservation>> itemIntervals = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        List<BookingPeriod> periods = new ArrayList<>(
+                bookingRepository.findAllPeriodsByStatusInAndEndIsAfter(ACTIVE_STATUSES, LocalDateTime.now()));
+        log.info("Построение индекса интервалов бронирований, активных бронирований: {}", periods.size());
+        //Объединение сравнивает период только с предыдущим интервалом, поэтому периоды идут по возрастанию начала.
+        //Запрос уже упорядочивает их, и на отсортированном списке повторная сортировка линейна
+        periods.sort(Comparator.comparing(BookingPeriod::getItemId).thenComparing(BookingPeriod::getStart));
+        itemIntervals.clear();
+        for (BookingPeriod period : periods) {
+            NavigableMap<LocalDateTime, Reservation> intervals = getIntervals(period.getItemId());
+            Map.Entry<LocalDateTime, Reservation> floor = intervals.floorEntry(period.getStart());
+            if (floor != null && floor.getValue().getEnd().isAfter(period.getStart())) {
+                //Пересекающиеся бронирования, созданные до появления индекса, объединяются в один интервал
+                if (period.getEnd().isAfter(floor.getValue().getEnd()))
+                    intervals.put(floor.getKey(), new Reservation(period.getItemId(), floor.getKey(), period.getEnd()));
+                continue;
+            }
+            intervals.put(period.getStart(), new Reservation(period.getItemId(), period.getStart(), period.getEnd()));
+        }
+    }
+
+    public Reservation reserve(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, Reservation> intervals = getIntervals(itemId);
+        Reservation reservation = new Reservation(itemId, normalize(start), normalize(end));
+        synchronized (intervals) {
+            removeFinished(intervals, LocalDateTime.now());
+            Map.Entry<LocalDateTime, Reservation> floor = intervals.floorEntry(reservation.getStart());
+            if (floor != null && floor.getValue().getEnd().isAfter(reservation.getStart()))
+                return null;
+            Map.Entry<LocalDateTime, Reservation> ceiling = intervals.ceilingEntry(reservation.getStart());
+            if (ceiling != null && ceiling.getKey().isBefore(reservation.getEnd()))
+                return null;
+            intervals.put(reservation.getStart(), reservation);
+        }
+        TransactionCallbacks.onRollback(() -> remove(reservation));
+        return reservation;
+    }
+
+    //Отмена собственного резервирования, если бронирование так и не было сохранено
+    public void cancel(Reservation reservation) {
+        remove(reservation);
+    }
+
+    public void release(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, Reservation> intervals = getIntervals(itemId);
+        Reservation reservation;
+        synchronized (intervals) {
+            reservation = intervals.get(normalize(start));
+            if (reservation == null || !reservation.getEnd().equals(normalize(end)))
+                return;
+            intervals.remove(reservation.getStart());
+        }
+        TransactionCallbacks.onRollback(() -> restore(reservation));
+    }
+
+    private void remove(Reservation reservation) {
+        NavigableMap<LocalDateTime, Reservation> intervals = getIntervals(reservation.getItemId());
+        synchronized (intervals) {
+            intervals.remove(reservation.getStart(), reservation);
+        }
+    }
+
+    private void restore(Reservation reservation) {
+        NavigableMap<LocalDateTime, Reservation> intervals = getIntervals(reservation.getItemId());
+        synchronized (intervals) {
+            intervals.putIfAbsent(reservation.getStart(), reservation);
+        }
+    }
+
+    //БД округляет время до микросекунд, ключи индекса должны совпадать с прочитанными из БД
+    private LocalDateTime normalize(LocalDateTime time) {
+        return time.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private NavigableMap<LocalDateTime, Reservation> getIntervals(Integer itemId) {
+        return itemIntervals.computeIfAbsent(itemId, id -> new TreeMap<>());
+    }
+
+    private void removeFinished(NavigableMap<LocalDateTime, Reservation> intervals, LocalDateTime now) {
+        while (!intervals.isEmpty() && !intervals.firstEntry().getValue().getEnd().isAfter(now))
+            intervals.pollFirstEntry();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Reservation {
+        private final Integer itemId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+}
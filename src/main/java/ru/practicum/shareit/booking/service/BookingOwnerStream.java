@@ -0,0 +1,140 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.common.SseHub;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+//Поток событий о бронированиях вещей владельца: создание бронирования и каждая смена статуса.
+//Доставку выполняет SseHub; при переполнении очереди соединение закрывается, клиент переподключается
+//с Last-Event-ID и получает пропущенные события из кольцевого буфера последних событий.
+//Идентификатор события - "<эпоха>-<номер>": номера начинаются заново при каждом запуске, а эпоха отличает
+//идентификаторы прошлых запусков, для которых буфер уже не содержит событий
+@Component
+@Slf4j
+public class BookingOwnerStream {
+    private final UserRepository userRepository;
+    private final SseHub<Integer> hub;
+    //Событие с номером n хранится в ячейке n % history.length. Под блокировкой буфера только присваиваются номера,
+    //регистрируются подписчики и снимается список получателей, поэтому событие попадает к новому подписчику
+    //либо при восстановлении, либо при публикации, но не дважды. Отправка идёт вне блокировки
+    private final BookingChangedEvent[] history;
+    private final String epoch = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+    private long sequence;
+
+    public BookingOwnerStream(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${shareit.bookings.stream.timeout:1800000}") long timeout,
+                              @Value("${shareit.bookings.stream.queue-capacity:100}") int queueCapacity,
+                              @Value("${shareit.bookings.stream.history:1000}") int historySize,
+                              @Value("${shareit.bookings.stream.threads:2}") int threads) {
+        this.userRepository = userRepository;
+        this.history = new BookingChangedEvent[historySize];
+        this.hub = new SseHub<>("shareit.bookings.stream", meterRegistry, timeout, queueCapacity, threads);
+    }
+
+    public SseEmitter subscribe(Integer ownerId, String lastEventId) {
+        log.info("Подписка владельца {} на бронирования, последнее событие {}", ownerId, lastEventId);
+        if (!userRepository.existsById(ownerId)) {
+            log.error("Не найден пользователь {} для подписки на бронирования!", ownerId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для подписки на бронирования!", ownerId));
+        }
+        Long after = parseEventId(lastEventId);
+        SseHub<Integer>.Subscriber subscriber;
+        synchronized (history) {
+            subscriber = hub.register(ownerId, after != null ? replay(ownerId, after) : List.of());
+        }
+        subscriber.start();
+        return subscriber.getEmitter();
+    }
+
+    public int size() {
+        return hub.size();
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    //Событие уходит подписчикам только после фиксации транзакции, изменившей бронирование
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getOwnerId() == null)
+            return;
+        long number;
+        List<SseHub<Integer>.Subscriber> recipients;
+        synchronized (history) {
+            number = ++sequence;
+            history[(int) (number % history.length)] = event;
+            recipients = hub.get(event.getOwnerId());
+        }
+        recipients.forEach(subscriber -> subscriber.offer(toSse(number, event)));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.heartbeat:15000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+
+    //Если пропущенные события уже вытеснены из буфера, не помещаются в очередь или идентификатор из другого запуска,
+    //клиенту отправляется reset: список бронирований нужно перечитать через /bookings/owner
+    private List<SseEmitter.SseEventBuilder> replay(Integer ownerId, long after) {
+        List<SseEmitter.SseEventBuilder> missed = new ArrayList<>();
+        boolean complete = after >= 0 && after <= sequence && after >= sequence - history.length;
+        for (long number = after + 1; complete && number <= sequence; number++) {
+            BookingChangedEvent event = history[(int) (number % history.length)];
+            if (Objects.equals(event.getOwnerId(), ownerId))
+                missed.add(toSse(number, event));
+            complete = missed.size() <= hub.getQueueCapacity();
+        }
+        if (!complete)
+            return List.of(SseEmitter.event().id(toEventId(sequence)).name("reset").data(sequence));
+        return missed;
+    }
+
+    private SseEmitter.SseEventBuilder toSse(long number, BookingChangedEvent event) {
+        return SseEmitter.event()
+                .id(toEventId(number))
+                .name("booking")
+                .data(event);
+    }
+
+    private String toEventId(long number) {
+        return epoch + "-" + number;
+    }
+
+    //Номер последнего полученного события; -1, если идентификатор выдан в другом запуске
+    private Long parseEventId(String eventId) {
+        if (eventId == null || eventId.isBlank())
+            return null;
+        int separator = eventId.lastIndexOf('-');
+        try {
+            if (separator <= 0)
+                throw new NumberFormatException(eventId);
+            long number = Long.parseLong(eventId.substring(separator + 1));
+            return epoch.equals(eventId.substring(0, separator)) ? number : -1L;
+        } catch (NumberFormatException e) {
+            log.error("Некорректное значение Last-Event-ID {}", eventId);
+            throw new ValidationException(String.format("Некорректное значение Last-Event-ID %s", eventId));
+        }
+    }
+}
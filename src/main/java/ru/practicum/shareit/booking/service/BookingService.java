@@ -1,18 +1,38 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoExtended;
+import ru.practicum.shareit.pagination.CursorPage;
 
 import java.util.List;
 
 public interface BookingService {
     BookingDtoExtended add(BookingDto bookingDto, Integer userId);
 
+    List<BookingBatchResultDto> addAll(List<BookingDto> bookingDtos, Integer userId);
+
     BookingDtoExtended get(Integer bookingId, Integer userId);
 
     List<BookingDtoExtended> getAllByUserId(Integer userId, String state, Integer from, Integer size);
 
     BookingDtoExtended approve(Integer bookingId, Boolean approved, Integer userId);
 
+    List<Integer> approveAll(List<Integer> bookingIds, Boolean approved, Integer userId);
+
     List<BookingDtoExtended> getAllForItems(Integer userId, String state, Integer from, Integer size);
+
+    CursorPage<BookingDtoExtended> getPageByUserId(Integer userId, String state, String cursor, Integer size);
+
+    CursorPage<BookingDtoExtended> getPageForItems(Integer userId, String state, String cursor, Integer size);
+
+    BookingCountsDto getCountsByUserId(Integer userId);
+
+    BookingCountsDto getCountsForItems(Integer userId);
+
+    StreamingResponseBody exportByUserId(Integer userId, String state);
+
+    StreamingResponseBody exportForItems(Integer userId, String state);
 }
@@ -1,18 +1,26 @@
 package ru.practicum.shareit.booking.service;
 
-import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoExtended;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.BookingStatusDto;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UnsupportedException;
@@ -20,44 +28,37 @@ import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static ru.practicum.shareit.booking.dto.BookingStatusDto.*;
-
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class BookingServiceImpl implements BookingService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_BATCH_SIZE = 1000;
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingMapper bookingMapper;
     private final ItemMapper itemMapper;
     private final UserMapper userMapper;
-
-    private final Map<BookingStatusDto, Function<BookingSearchData, List<BookingDtoExtended>>> userHandlerMap = Map.of(
-            ALL, this::handleAllByUser,
-            CURRENT, this::handleCurrentByUser,
-            PAST, this::handlePastByUser,
-            FUTURE, this::handleFutureByUser,
-            WAITING, this::handleWaitingByUser,
-            REJECTED, this::handleRejectedByUser);
-    private final Map<BookingStatusDto, Function<BookingSearchData, List<BookingDtoExtended>>> itemHandlerMap = Map.of(
-            ALL, this::handleAllByItem,
-            CURRENT, this::handleCurrentByItem,
-            PAST, this::handlePastByItem,
-            FUTURE, this::handleFutureByItem,
-            WAITING, this::handleWaitingByItem,
-            REJECTED, this::handleRejectedByItem);
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingExporter bookingExporter;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public BookingDtoExtended add(BookingDto bookingDto, Integer userId) {
@@ -68,6 +69,81 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException(String.format("Не найден пользователь %d для бронирования!", userId));
         }
         Item item = itemRepository.findById(bookingDto.getItemId()).orElse(null);
+        Booking booking = createBooking(bookingDto, userId, booker, item);
+        BookingIntervalIndex.Reservation reservation = reserve(booking);
+        Booking result;
+        try {
+            result = bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            bookingIntervalIndex.cancel(reservation);
+            log.error("Период бронирования вещи {} пересекается с существующим бронированием!", item.getId());
+            throw new ValidationException(String.format("Период бронирования вещи %d пересекается с существующим бронированием!", item.getId()));
+        } catch (RuntimeException e) {
+            bookingIntervalIndex.cancel(reservation);
+            throw e;
+        }
+        publishChanged(result);
+        return toOutDto(result);
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> addAll(List<BookingDto> bookingDtos, Integer userId) {
+        log.info("Пакетное создание бронирований для пользователя {}, количество {}", userId, bookingDtos.size());
+        if (bookingDtos.size() > MAX_BATCH_SIZE) {
+            log.error("Размер пакета бронирований не должен превышать {}! Текущий размер {}", MAX_BATCH_SIZE, bookingDtos.size());
+            throw new ValidationException(String.format("Размер пакета бронирований не должен превышать %d! Текущий размер %d", MAX_BATCH_SIZE, bookingDtos.size()));
+        }
+        User booker = userRepository.findById(userId).orElse(null);
+        if (booker == null) {
+            log.error("Не найден пользователь {} для бронирования!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для бронирования!", userId));
+        }
+        Set<Integer> itemIds = bookingDtos.stream()
+                .map(BookingDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingDtos.size());
+        List<Booking> bookings = new ArrayList<>();
+        List<BookingIntervalIndex.Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            BookingBatchResultDto result = BookingBatchResultDto.builder().index(i).build();
+            results.add(result);
+            if (bookingDto.getItemId() == null || bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+                result.setError("Не заданы вещь или период бронирования!");
+                continue;
+            }
+            try {
+                Booking booking = createBooking(bookingDto, userId, booker, items.get(bookingDto.getItemId()));
+                reservations.add(reserve(booking));
+                bookings.add(booking);
+            } catch (NotFoundException | ValidationException e) {
+                result.setError(e.getMessage());
+            }
+        }
+        try {
+            bookingRepository.insertAll(bookings);
+        } catch (DataIntegrityViolationException e) {
+            reservations.forEach(bookingIntervalIndex::cancel);
+            log.error("Пакет бронирований пользователя {} пересекается с существующими бронированиями!", userId);
+            throw new ValidationException(String.format("Пакет бронирований пользователя %d пересекается с существующими бронированиями!", userId));
+        } catch (RuntimeException e) {
+            reservations.forEach(bookingIntervalIndex::cancel);
+            throw e;
+        }
+        bookings.forEach(this::publishChanged);
+        Iterator<Booking> saved = bookings.iterator();
+        for (BookingBatchResultDto result : results) {
+            if (result.getError() == null)
+                result.setBooking(toOutDto(saved.next()));
+        }
+        return results;
+    }
+
+    private Booking createBooking(BookingDto bookingDto, Integer userId, User booker, Item item) {
         if (item == null) {
             log.error("Не найдена вещь с идентификатором {} для бронирования!", bookingDto.getItemId());
             throw new NotFoundException(String.format("Не найдена вещь с идентификатором %d для бронирования!", bookingDto.getItemId()));
@@ -84,8 +160,16 @@ public class BookingServiceImpl implements BookingService {
         validateTime(bookingDto);
         Booking booking = bookingMapper.fromDto(bookingDto, item, booker);
         booking.setStatus(BookingStatus.WAITING);
-        Booking result = bookingRepository.saveAndFlush(booking);
-        return bookingMapper.toOutDto(result, itemMapper.toDto(result.getItem()), userMapper.toDto(result.getBooker()));
+        return booking;
+    }
+
+    private BookingIntervalIndex.Reservation reserve(Booking booking) {
+        BookingIntervalIndex.Reservation reservation = bookingIntervalIndex.reserve(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+        if (reservation == null) {
+            log.error("Период бронирования вещи {} пересекается с существующим бронированием!", booking.getItem().getId());
+            throw new ValidationException(String.format("Период бронирования вещи %d пересекается с существующим бронированием!", booking.getItem().getId()));
+        }
+        return reservation;
     }
 
     @Override
@@ -100,7 +184,7 @@ public class BookingServiceImpl implements BookingService {
             log.error("Вывод данных запрещён: пользователь с идентификатором {} не является автором бронирования либо владельцем вещи!", userId);
             throw new NotFoundException(String.format("Вывод данных запрещён: пользователь с идентификатором %d не является автором бронирования либо владельцем вещи!", userId));
         }
-        return bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()));
+        return toOutDto(booking);
     }
 
     @Override
@@ -120,11 +204,16 @@ public class BookingServiceImpl implements BookingService {
             log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
             throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
         }
-        Pageable pageable = (from == null || size == null
-                ? PageRequest.of(0, Integer.MAX_VALUE, Sort.by("start").descending())
-                : PageRequest.of(from / size, size, Sort.by("start").descending()));
-        BookingSearchData data = new BookingSearchData(booker, pageable);
-        return userHandlerMap.get(bookingStatusDto).apply(data);
+        Pageable pageable = (from == null || size == null ? Pageable.unpaged() : PageRequest.of(from / size, size));
+        BookingFilter filter = BookingFilter.builder()
+                .role(BookingFilter.Role.BOOKER)
+                .user(booker)
+                .state(bookingStatusDto)
+                .now(LocalDateTime.now())
+                .build();
+        return bookingRepository.findRowsByFilter(filter, pageable).stream()
+                .map(bookingMapper::toOutDto)
+                .collect(Collectors.toList());
     }
 
     private BookingStatusDto getState(String state) {
@@ -154,7 +243,39 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException(String.format("Попытка изменить статус бронирования %d, не находящегося в ожидании!", bookingId));
         }
         Booking result = bookingRepository.saveAndFlush(booking);
-        return bookingMapper.toOutDto(result, itemMapper.toDto(result.getItem()), userMapper.toDto(result.getBooker()));
+        if (result.getStatus() == BookingStatus.REJECTED)
+            bookingIntervalIndex.release(result.getItem().getId(), result.getStart(), result.getEnd());
+        publishChanged(result);
+        return toOutDto(result);
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> approveAll(List<Integer> bookingIds, Boolean approved, Integer userId) {
+        log.info("Пакетное подтверждение бронирований пользователем {}, количество {}", userId, bookingIds.size());
+        if (bookingIds.size() > MAX_BATCH_SIZE) {
+            log.error("Размер пакета бронирований не должен превышать {}! Текущий размер {}", MAX_BATCH_SIZE, bookingIds.size());
+            throw new ValidationException(String.format("Размер пакета бронирований не должен превышать %d! Текущий размер %d", MAX_BATCH_SIZE, bookingIds.size()));
+        }
+        if (userRepository.findById(userId).isEmpty()) {
+            log.error("Не найден пользователь {} для подтверждения бронирований!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для подтверждения бронирований!", userId));
+        }
+        if (bookingIds.isEmpty())
+            return List.of();
+        //Выборка блокирует строки ради периодов для индекса интервалов и событий, владельца проверяет и сам UPDATE
+        List<BookingPeriod> periods = bookingRepository.findAllWaitingForUpdate(bookingIds, userId);
+        if (periods.isEmpty())
+            return List.of();
+        List<Integer> ids = periods.stream()
+                .map(BookingPeriod::getId)
+                .collect(Collectors.toList());
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        bookingRepository.updateWaitingStatus(ids, userId, status);
+        if (status == BookingStatus.REJECTED)
+            periods.forEach(period -> bookingIntervalIndex.release(period.getItemId(), period.getStart(), period.getEnd()));
+        periods.forEach(period -> eventPublisher.publishEvent(new BookingChangedEvent(period.getId(), period.getItemId(), userId, status)));
+        return ids;
     }
 
     @Override
@@ -174,92 +295,133 @@ public class BookingServiceImpl implements BookingService {
             log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
             throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
         }
-        Pageable pageable = (from == null || size == null
-                ? PageRequest.of(0, Integer.MAX_VALUE, Sort.by("start").descending())
-                : PageRequest.of(from / size, size, Sort.by("start").descending()));
-        BookingSearchData data = new BookingSearchData(owner, pageable);
-        return itemHandlerMap.get(bookingStatusDto).apply(data);
+        Pageable pageable = (from == null || size == null ? Pageable.unpaged() : PageRequest.of(from / size, size));
+        BookingFilter filter = BookingFilter.builder()
+                .role(BookingFilter.Role.OWNER)
+                .user(owner)
+                .state(bookingStatusDto)
+                .now(LocalDateTime.now())
+                .build();
+        return bookingRepository.findRowsByFilter(filter, pageable).stream()
+                .map(bookingMapper::toOutDto)
+                .collect(Collectors.toList());
     }
 
-    private void validateTime(BookingDto bookingDto) {
-        LocalDateTime start = bookingDto.getStart();
-        LocalDateTime end = bookingDto.getEnd();
-        LocalDateTime now = LocalDateTime.now();
-        if (start.isBefore(now) || end.isBefore(now) || !start.isBefore(end)) {
-            log.error("Неверно заданы параметры времени для бронирования вещи {} пользователем {}", bookingDto.getItemId(), bookingDto.getBookerId());
-            throw new ValidationException(String.format("Неверно заданы параметры времени для бронирования вещи %d пользователем %d", bookingDto.getItemId(), bookingDto.getBookerId()));
+    @Override
+    public CursorPage<BookingDtoExtended> getPageByUserId(Integer userId, String state, String cursor, Integer size) {
+        log.info("Получение страницы бронирований по идентификатору пользователя {} и статусу {}", userId, state);
+        BookingStatusDto bookingStatusDto = getState(state);
+        User booker = userRepository.findById(userId).orElse(null);
+        if (booker == null) {
+            log.error("Не найден пользователь {} для бронирования!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для бронирования!", userId));
         }
+        return getPage(BookingFilter.builder()
+                .role(BookingFilter.Role.BOOKER)
+                .user(booker)
+                .state(bookingStatusDto)
+                .now(LocalDateTime.now())
+                .build(), cursor, size);
     }
 
-    private List<BookingDtoExtended> handleAllByUser(BookingSearchData data) {
-        return bookingRepository.findAllByBooker(data.user, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
-    }
-
-    private List<BookingDtoExtended> handleCurrentByUser(BookingSearchData data) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookingRepository.findAllByBookerAndStartIsBeforeAndEndIsAfter(data.user, now, now, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
-    }
-
-    private List<BookingDtoExtended> handlePastByUser(BookingSearchData data) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookingRepository.findAllByBookerAndEndIsBefore(data.user, now, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
-    }
-
-    private List<BookingDtoExtended> handleFutureByUser(BookingSearchData data) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookingRepository.findAllByBookerAndStartIsAfter(data.user, now, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    @Override
+    public CursorPage<BookingDtoExtended> getPageForItems(Integer userId, String state, String cursor, Integer size) {
+        log.info("Получение страницы бронирований по вещам пользователя {} и статусу {}", userId, state);
+        BookingStatusDto bookingStatusDto = getState(state);
+        User owner = userRepository.findById(userId).orElse(null);
+        if (owner == null) {
+            log.error("Не найден пользователь {} для поиска бронирований по вещам!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для поиска бронирований по вещам!", userId));
+        }
+        return getPage(BookingFilter.builder()
+                .role(BookingFilter.Role.OWNER)
+                .user(owner)
+                .state(bookingStatusDto)
+                .now(LocalDateTime.now())
+                .build(), cursor, size);
     }
 
-    private List<BookingDtoExtended> handleWaitingByUser(BookingSearchData data) {
-        return bookingRepository.findAllByBookerAndStatus(data.user, BookingStatus.WAITING, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    @Override
+    public BookingCountsDto getCountsByUserId(Integer userId) {
+        log.info("Подсчёт бронирований пользователя {} по статусам", userId);
+        if (userRepository.findById(userId).isEmpty()) {
+            log.error("Не найден пользователь {} для подсчёта бронирований!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для подсчёта бронирований!", userId));
+        }
+        return bookingRepository.countByBooker(userId, LocalDateTime.now());
     }
 
-    private List<BookingDtoExtended> handleRejectedByUser(BookingSearchData data) {
-        return bookingRepository.findAllByBookerAndStatus(data.user, BookingStatus.REJECTED, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    @Override
+    public BookingCountsDto getCountsForItems(Integer userId) {
+        log.info("Подсчёт бронирований по вещам пользователя {} по статусам", userId);
+        if (userRepository.findById(userId).isEmpty()) {
+            log.error("Не найден пользователь {} для подсчёта бронирований по вещам!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для подсчёта бронирований по вещам!", userId));
+        }
+        return bookingRepository.countByItemOwner(userId, LocalDateTime.now());
     }
 
-    private List<BookingDtoExtended> handleAllByItem(BookingSearchData data) {
-        return bookingRepository.findAllByItemOwner(data.user, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    @Override
+    public StreamingResponseBody exportByUserId(Integer userId, String state) {
+        log.info("Выгрузка бронирований по идентификатору пользователя {} и статусу {}", userId, state);
+        BookingStatusDto bookingStatusDto = getState(state);
+        User booker = userRepository.findById(userId).orElse(null);
+        if (booker == null) {
+            log.error("Не найден пользователь {} для выгрузки бронирований!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для выгрузки бронирований!", userId));
+        }
+        return bookingExporter.export(BookingFilter.builder()
+                .role(BookingFilter.Role.BOOKER)
+                .user(booker)
+                .state(bookingStatusDto)
+                .now(LocalDateTime.now())
+                .build());
     }
 
-    private List<BookingDtoExtended> handleCurrentByItem(BookingSearchData data) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookingRepository.findAllByItemOwnerCurrent(data.user, now, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    @Override
+    public StreamingResponseBody exportForItems(Integer userId, String state) {
+        log.info("Выгрузка бронирований по вещам пользователя {} и статусу {}", userId, state);
+        BookingStatusDto bookingStatusDto = getState(state);
+        User owner = userRepository.findById(userId).orElse(null);
+        if (owner == null) {
+            log.error("Не найден пользователь {} для выгрузки бронирований по вещам!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для выгрузки бронирований по вещам!", userId));
+        }
+        return bookingExporter.export(BookingFilter.builder()
+                .role(BookingFilter.Role.OWNER)
+                .user(owner)
+                .state(bookingStatusDto)
+                .now(LocalDateTime.now())
+                .build());
     }
 
-    private List<BookingDtoExtended> handlePastByItem(BookingSearchData data) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookingRepository.findAllByItemOwnerPast(data.user, now, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    private CursorPage<BookingDtoExtended> getPage(BookingFilter filter, String cursor, Integer size) {
+        if (size != null && size <= 0) {
+            log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
+            throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
+        }
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        List<BookingRow> rows = bookingRepository.findRowsByFilter(filter, Cursor.decode(cursor), pageSize + 1);
+        return CursorPage.of(rows, pageSize, row -> new Cursor(row.getStart(), row.getId()))
+                .map(bookingMapper::toOutDto);
     }
 
-    private List<BookingDtoExtended> handleFutureByItem(BookingSearchData data) {
+    private void validateTime(BookingDto bookingDto) {
+        LocalDateTime start = bookingDto.getStart();
+        LocalDateTime end = bookingDto.getEnd();
         LocalDateTime now = LocalDateTime.now();
-        return bookingRepository.findAllByItemOwnerFuture(data.user, now, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
-    }
-
-    private List<BookingDtoExtended> handleWaitingByItem(BookingSearchData data) {
-        return bookingRepository.findAllByItemOwnerByStatus(data.user, BookingStatus.WAITING, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+        if (start.isBefore(now) || end.isBefore(now) || !start.isBefore(end)) {
+            log.error("Неверно заданы параметры времени для бронирования вещи {} пользователем {}", bookingDto.getItemId(), bookingDto.getBookerId());
+            throw new ValidationException(String.format("Неверно заданы параметры времени для бронирования вещи %d пользователем %d", bookingDto.getItemId(), bookingDto.getBookerId()));
+        }
     }
 
-    private List<BookingDtoExtended> handleRejectedByItem(BookingSearchData data) {
-        return bookingRepository.findAllByItemOwnerByStatus(data.user, BookingStatus.REJECTED, data.pageable).stream().map(booking ->
-                bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()))).collect(Collectors.toList());
+    private void publishChanged(Booking booking) {
+        eventPublisher.publishEvent(new BookingChangedEvent(booking.getId(), booking.getItem().getId(),
+                booking.getItem().getOwner().getId(), booking.getStatus()));
     }
 
-    @AllArgsConstructor
-    static class BookingSearchData {
-        User user;
-        Pageable pageable;
+    private BookingDtoExtended toOutDto(Booking booking) {
+        return bookingMapper.toOutDto(booking, itemMapper.toDto(booking.getItem()), userMapper.toDto(booking.getBooker()));
     }
 }
@@ -1,16 +1,24 @@
 package ru.practicum.shareit.comment;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.comment.dto.CommentDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface CommentRepository extends JpaRepository<Comment, Integer> {
-    List<Comment> getAllByItemOrderByCreatedDesc(Item item);
+public interface CommentRepository extends JpaRepository<Comment, Integer>, CommentRepositoryCustom {
+    @Query("select new ru.practicum.shareit.comment.dto.CommentDto(c.id, c.text, c.item.id, a.id, a.name, c.created)" +
+            " from Comment c join c.author a" +
+            " where c.item.id = :itemId" +
+            " order by c.created desc, c.id desc")
+    List<CommentDto> findAllDtoByItemId(Integer itemId, Pageable pageable);
 
-    @Query(" from Comment c" +
-            " where c.item.owner = :owner")
-    List<Comment> getAllByOwner(User owner);
+    @Query("select new ru.practicum.shareit.comment.dto.CommentDto(c.id, c.text, c.item.id, a.id, a.name, c.created)" +
+            " from Comment c join c.author a" +
+            " where c.item.id = :itemId" +
+            " and (c.created < :created or (c.created = :created and c.id < :id))" +
+            " order by c.created desc, c.id desc")
+    List<CommentDto> findAllDtoByItemIdBefore(Integer itemId, LocalDateTime created, Integer id, Pageable pageable);
 }
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.comment;
+
+import ru.practicum.shareit.comment.dto.CommentDto;
+
+import java.util.List;
+
+public interface CommentRepositoryCustom {
+    List<CommentDto> findLatestDtoByItemIds(List<Integer> itemIds, int limitPerItem);
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.comment;
+
+import ru.practicum.shareit.comment.dto.CommentDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+    //Последние limit отзывов по каждой вещи из списка: окно по item_id вместо всех отзывов владельца
+    private static final String SELECT_LATEST_BY_ITEMS = "SELECT t.id, t.text, t.item_id, t.author_id, t.author_name, t.created FROM (" +
+            " SELECT c.id, c.text, c.item_id, c.author_id, u.name AS author_name, c.created," +
+            " ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.created DESC, c.id DESC) AS rn" +
+            " FROM comments c JOIN users u ON u.id = c.author_id WHERE c.item_id IN (:itemIds)" +
+            ") t WHERE t.rn <= :limit ORDER BY t.item_id, t.created DESC, t.id DESC";
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CommentDto> findLatestDtoByItemIds(List<Integer> itemIds, int limitPerItem) {
+        if (itemIds.isEmpty())
+            return new ArrayList<>();
+        List<Object[]> rows = entityManager.createNativeQuery(SELECT_LATEST_BY_ITEMS)
+                .setParameter("itemIds", itemIds)
+                .setParameter("limit", limitPerItem)
+                .getResultList();
+        List<CommentDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows)
+            result.add(new CommentDto(((Number) row[0]).intValue(),
+                    (String) row[1],
+                    ((Number) row[2]).intValue(),
+                    ((Number) row[3]).intValue(),
+                    (String) row[4],
+                    ((Timestamp) row[5]).toLocalDateTime()));
+        return result;
+    }
+}
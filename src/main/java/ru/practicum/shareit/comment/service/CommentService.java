@@ -1,7 +1,10 @@
 package ru.practicum.shareit.comment.service;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.pagination.CursorPage;
 
 public interface CommentService {
     CommentDto add(CommentDto commentDto, Integer itemId, Integer userId);
+
+    CursorPage<CommentDto> getPageByItemId(Integer itemId, String cursor, Integer size);
 }
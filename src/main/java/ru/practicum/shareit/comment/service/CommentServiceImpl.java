@@ -2,6 +2,8 @@ package ru.practicum.shareit.comment.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
@@ -14,6 +16,8 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -24,6 +28,7 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 public class CommentServiceImpl implements CommentService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
@@ -52,4 +57,24 @@ public class CommentServiceImpl implements CommentService {
         Comment comment = commentMapper.fromDto(commentDto, item, author);
         return commentMapper.toDto(commentRepository.saveAndFlush(comment));
     }
+
+    @Override
+    public CursorPage<CommentDto> getPageByItemId(Integer itemId, String cursor, Integer size) {
+        log.info("Получение страницы отзывов для вещи {}", itemId);
+        if (!itemRepository.existsById(itemId)) {
+            log.error("Не найдена вещь {} для получения отзывов!", itemId);
+            throw new NotFoundException(String.format("Не найдена вещь %d для получения отзывов!", itemId));
+        }
+        if (size != null && size <= 0) {
+            log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
+            throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
+        }
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        Cursor after = Cursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<CommentDto> rows = after == null
+                ? commentRepository.findAllDtoByItemId(itemId, pageable)
+                : commentRepository.findAllDtoByItemIdBefore(itemId, after.getTimestamp(), after.getId(), pageable);
+        return CursorPage.of(rows, pageSize, row -> new Cursor(row.getCreated(), row.getId()));
+    }
 }
@@ -0,0 +1,195 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//Подписки SSE, сгруппированные по ключу получателя. Публикация только кладёт событие в ограниченную очередь
+//подписчика и не ждёт медленных клиентов, отправку выполняет общий пул: очередь пула не ограничена,
+//но в ней не больше одной задачи на подписчика. Переполнение очереди подписчика закрывает соединение.
+//Метрики: <name>.subscribers - открытые подписки, <name>.overflow - подписки, закрытые из-за переполнения
+@Slf4j
+public class SseHub<K> {
+    private final String name;
+    private final long timeout;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor sender;
+    private final Counter overflowCounter;
+    private final Map<K, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public SseHub(String name, MeterRegistry meterRegistry, long timeout, int queueCapacity, int threads) {
+        this.name = name;
+        this.timeout = timeout;
+        this.queueCapacity = queueCapacity;
+        this.sender = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory(name + "-"));
+        this.overflowCounter = Counter.builder(name + ".overflow")
+                .description("Подписки, закрытые из-за переполнения очереди")
+                .register(meterRegistry);
+        Gauge.builder(name + ".subscribers", this, SseHub::size)
+                .description("Открытые подписки")
+                .register(meterRegistry);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public SseEmitter subscribe(K key) {
+        Subscriber subscriber = register(key, List.of());
+        subscriber.start();
+        return subscriber.emitter;
+    }
+
+    //Начальные события попадают в очередь до того, как подписчик становится виден публикации, поэтому
+    //идут раньше любых последующих. Метод не отправляет данных и может вызываться под блокировкой;
+    //отправку начинает start()
+    public Subscriber register(K key, List<SseEmitter.SseEventBuilder> initial) {
+        Subscriber subscriber = new Subscriber(key, new SseEmitter(timeout));
+        subscriber.queue.addAll(initial.subList(0, Math.min(initial.size(), queueCapacity)));
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+        subscribers.compute(key, (id, keyed) -> {
+            Set<Subscriber> result = keyed != null ? keyed : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        return subscriber;
+    }
+
+    //Снимок подписчиков: позволяет зафиксировать получателей под блокировкой издателя, а отправлять вне её
+    public List<Subscriber> get(K key) {
+        Set<Subscriber> keyed = subscribers.get(key);
+        return keyed == null ? List.of() : List.copyOf(keyed);
+    }
+
+    //SseEventBuilder дописывает разделитель при отправке, поэтому каждому подписчику нужен свой экземпляр
+    public void publish(K key, Supplier<SseEmitter.SseEventBuilder> event) {
+        get(key).forEach(subscriber -> subscriber.offer(event.get()));
+    }
+
+    public void heartbeat() {
+        subscribers.values().forEach(keyed -> keyed.forEach(subscriber ->
+                subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    public int size() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (id, keyed) -> {
+            keyed.remove(subscriber);
+            return keyed.isEmpty() ? null : keyed;
+        });
+    }
+
+    public class Subscriber {
+        private final K key;
+        private final SseEmitter emitter;
+        private final Deque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        private Subscriber(K key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        public void start() {
+            synchronized (this) {
+                if (closed || draining || queue.isEmpty())
+                    return;
+                draining = true;
+            }
+            execute();
+        }
+
+        public void offer(SseEmitter.SseEventBuilder event) {
+            boolean overflow;
+            synchronized (this) {
+                if (closed)
+                    return;
+                overflow = queue.size() >= queueCapacity;
+                if (!overflow) {
+                    queue.add(event);
+                    if (draining)
+                        return;
+                    draining = true;
+                }
+            }
+            if (overflow) {
+                overflowCounter.increment();
+                log.warn("Очередь событий {} для {} переполнена, соединение закрыто", name, key);
+                close(null);
+                return;
+            }
+            execute();
+        }
+
+        private void execute() {
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close(e);
+            }
+        }
+
+        //Отправка в закрытое клиентом соединение завершается ошибкой - такой подписчик удаляется
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    event = closed ? null : queue.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    close(e);
+                    return;
+                }
+            }
+        }
+
+        private void close(Exception e) {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            remove(this);
+            if (e != null)
+                emitter.completeWithError(e);
+            else
+                emitter.complete();
+        }
+    }
+}
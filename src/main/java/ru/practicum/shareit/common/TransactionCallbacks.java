@@ -0,0 +1,23 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Компенсация изменений in-memory индексов: действие выполняется, если текущая транзакция не зафиксирована.
+//Вне транзакции изменение сразу считается окончательным
+public final class TransactionCallbacks {
+    private TransactionCallbacks() {
+    }
+
+    public static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED)
+                    action.run();
+            }
+        });
+    }
+}
@@ -1,14 +1,19 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.service.CommentService;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoExtended;
+import ru.practicum.shareit.item.service.ItemAvailabilityService;
 import ru.practicum.shareit.item.service.ItemService;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,6 +22,7 @@ import java.util.List;
 public class ItemController {
     private final ItemService itemService;
     private final CommentService commentService;
+    private final ItemAvailabilityService itemAvailabilityService;
 
     @PostMapping()
     public ItemDto add(@RequestHeader("X-Sharer-User-Id") Integer userId, @Valid @RequestBody ItemDto itemDto) {
@@ -34,6 +40,14 @@ public class ItemController {
         return itemService.get(itemId, userId);
     }
 
+    @GetMapping(path = "/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable(name = "itemId") Integer itemId,
+                                               @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(name = "includeWaiting", defaultValue = "false") Boolean includeWaiting) {
+        return itemAvailabilityService.get(itemId, from, to, includeWaiting);
+    }
+
     @GetMapping()
     public List<ItemDtoExtended> getAllByUserId(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                                 @RequestParam(name = "from", required = false) Integer from,
@@ -44,8 +58,23 @@ public class ItemController {
     @GetMapping(path = "/search")
     public List<ItemDto> getAvailableByText(@RequestParam(name = "text") String text,
                                             @RequestParam(name = "from", required = false) Integer from,
-                                            @RequestParam(name = "size", required = false) Integer size) {
-        return itemService.getAvailableByText(text, from, size);
+                                            @RequestParam(name = "size", required = false) Integer size,
+                                            @RequestParam(name = "sort", defaultValue = "id") String sort,
+                                            @RequestParam(name = "fuzzy", defaultValue = "false") Boolean fuzzy) {
+        return itemService.getAvailableByText(text, from, size, sort, fuzzy);
+    }
+
+    @GetMapping(path = "/suggest")
+    public List<String> suggestNames(@RequestParam(name = "prefix") String prefix,
+                                     @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        return itemService.suggestNames(prefix, size);
+    }
+
+    @GetMapping(path = "/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable(name = "itemId") Integer itemId,
+                                                        @RequestParam(name = "cursor", required = false) String cursor,
+                                                        @RequestParam(name = "size", required = false) Integer size) {
+        return commentService.getPageByItemId(itemId, cursor, size).toResponse();
     }
 
     @PostMapping(path = "/{itemId}/comment")
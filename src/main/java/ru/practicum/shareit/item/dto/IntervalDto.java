@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class IntervalDto {
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    public IntervalDto(@JsonProperty("start") LocalDateTime start, @JsonProperty("end") LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class ItemAvailabilityDto {
+    private Integer itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<IntervalDto> busy;
+    private List<IntervalDto> free;
+
+    public ItemAvailabilityDto(@JsonProperty("itemId") Integer itemId,
+                               @JsonProperty("from") LocalDateTime from,
+                               @JsonProperty("to") LocalDateTime to,
+                               @JsonProperty("busy") List<IntervalDto> busy,
+                               @JsonProperty("free") List<IntervalDto> free) {
+        this.itemId = itemId;
+        this.from = from;
+        this.to = to;
+        this.busy = busy;
+        this.free = free;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+//Публикуется при создании вещи. Для вещи, созданной по запросу, содержит автора запроса
+@Data
+@AllArgsConstructor
+public class ItemCreatedEvent {
+    private ItemDto item;
+    private Integer requestorId;
+}
@@ -4,10 +4,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.user.User;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Integer> {
@@ -23,6 +25,39 @@ public interface ItemRepository extends JpaRepository<Item, Integer> {
             " or upper(i.description) like upper(concat('%', :text, '%')))")
     Page<Item> searchByText(boolean available, String text, Pageable pageable);
 
+    @Query(value = "select * from items i" +
+            " where i.is_available = true" +
+            " and (upper(i.name) like upper(concat('%', :text, '%'))" +
+            " or upper(i.description) like upper(concat('%', :text, '%')))" +
+            " order by i.id",
+            countQuery = "select count(*) from items i" +
+                    " where i.is_available = true" +
+                    " and (upper(i.name) like upper(concat('%', :text, '%'))" +
+                    " or upper(i.description) like upper(concat('%', :text, '%')))",
+            nativeQuery = true)
+    Page<Item> searchAvailableByTrigram(String text, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.owner.id, r.id)" +
+            " from Item i left join i.request r" +
+            " where i.available = :available")
+    List<ItemDto> findAllDtoByAvailable(boolean available);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.owner.id, r.id)" +
+            " from Item i left join i.request r" +
+            " where i.id in :ids")
+    List<ItemDto> findAllDtoByIdIn(Collection<Integer> ids);
+
+    //Повторяет подсказки ItemNameSuggester: наименования сравниваются после ItemTextNormalizer.fold, из совпадающих
+    //без учёта регистра и ё возвращается написание вещи с меньшим id. Префикс передаётся уже приведённым
+    //и с экранированными символами шаблона LIKE
+    @Query("select i.name from Item i" +
+            " where i.id in (select min(n.id) from Item n" +
+            " where n.available = true" +
+            " and function('replace', lower(trim(n.name)), 'ё', 'е') like concat(:prefix, '%') escape '\\'" +
+            " group by function('replace', lower(trim(n.name)), 'ё', 'е'))" +
+            " order by function('replace', lower(trim(i.name)), 'ё', 'е')")
+    List<String> findAvailableNamesByPrefix(String prefix, Pageable pageable);
+
     @Query(" from Item i" +
             " where i.request.requestor = :requestor")
     List<Item> findAllByRequestor(User requestor);
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.Set;
+
+//Документ поискового индекса - копия доступной вещи и её текст после ItemTextNormalizer.
+//Слова и их основы вычисляются один раз при индексации и общие для всех представлений ItemDocumentStore
+final class ItemDocument {
+    private final ItemDto item;
+    private final String name;
+    private final String description;
+    private final Set<String> terms;
+    private final Set<String> stems;
+
+    ItemDocument(ItemDto item) {
+        this.item = copy(item);
+        this.name = item.getName() != null ? ItemTextNormalizer.fold(item.getName()) : "";
+        this.description = item.getDescription() != null ? ItemTextNormalizer.fold(item.getDescription()) : "";
+        this.terms = ItemTextNormalizer.terms(item.getName());
+        this.terms.addAll(ItemTextNormalizer.terms(item.getDescription()));
+        this.stems = ItemTextNormalizer.stems(terms);
+    }
+
+    Integer getId() {
+        return item.getId();
+    }
+
+    Integer getOwnerId() {
+        return item.getOwnerId();
+    }
+
+    //Наименование в исходном написании - для подсказок
+    String getTitle() {
+        return item.getName();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    Set<String> getTerms() {
+        return terms;
+    }
+
+    Set<String> getStems() {
+        return stems;
+    }
+
+    ItemDto getItem() {
+        return copy(item);
+    }
+
+    private static ItemDto copy(ItemDto item) {
+        return new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwnerId(), item.getRequestId());
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.search;
+
+//Представление ItemDocumentStore: поисковая структура, построенная по документам хранилища.
+//Вызывается под блокировкой записи хранилища, поэтому изменения приходят по одному в порядке применения;
+//собственные данные представление защищает своей блокировкой
+interface ItemDocumentListener {
+    void clear();
+
+    void add(ItemDocument document);
+
+    void remove(ItemDocument document);
+}
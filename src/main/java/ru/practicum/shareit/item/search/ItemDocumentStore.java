@@ -0,0 +1,129 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.TransactionCallbacks;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+//Общее хранилище документов поиска по доступным вещам. Загружает вещи при старте, применяет изменения
+//с откатом вместе с транзакцией и передаёт их представлениям: ItemSearchIndex, ItemFuzzyIndex, ItemNameSuggester.
+//Каждое представление держит свою блокировку, поэтому новая поисковая функция не расширяет чужие
+@Component
+@Slf4j
+public class ItemDocumentStore {
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, ItemDocument> documents = new HashMap<>();
+    private final List<ItemDocumentListener> listeners = new ArrayList<>();
+    private volatile boolean ready;
+
+    public ItemDocumentStore(ItemRepository itemRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${shareit.items.search.index.enabled:true}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        Gauge.builder("shareit.items.search.index.size", this, ItemDocumentStore::size)
+                .description("Доступные вещи в поисковом индексе")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            log.info("Поисковый индекс вещей отключен");
+            return;
+        }
+        List<ItemDto> items = itemRepository.findAllDtoByAvailable(true);
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            listeners.forEach(ItemDocumentListener::clear);
+            items.forEach(this::index);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Построение поискового индекса вещей, доступных вещей: {}", items.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(ItemDto item) {
+        if (!ready)
+            return;
+        ItemDto previous = replace(item.getId(), item);
+        TransactionCallbacks.onRollback(() -> replace(item.getId(), previous));
+    }
+
+    //Вещи в порядке переданных идентификаторов; снятые с индекса после выборки представлением пропускаются
+    List<ItemDto> getAll(Collection<Integer> itemIds) {
+        lock.readLock().lock();
+        try {
+            return itemIds.stream()
+                    .map(documents::get)
+                    .filter(Objects::nonNull)
+                    .map(ItemDocument::getItem)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Представление, созданное после загрузки, сразу получает все документы
+    void addListener(ItemDocumentListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+            documents.values().forEach(listener::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ItemDto replace(Integer itemId, ItemDto item) {
+        lock.writeLock().lock();
+        try {
+            ItemDocument previous = documents.remove(itemId);
+            if (previous != null)
+                listeners.forEach(listener -> listener.remove(previous));
+            if (item != null && Boolean.TRUE.equals(item.getAvailable()))
+                index(item);
+            return previous != null ? previous.getItem() : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(ItemDto item) {
+        ItemDocument document = new ItemDocument(item);
+        documents.put(item.getId(), document);
+        listeners.forEach(listener -> listener.add(document));
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+//Нечёткий поиск: префиксное дерево слов вещей с обходом по расстоянию Левенштейна.
+//Найденные идентификаторы разрешаются в вещи через ItemDocumentStore уже после снятия своей блокировки
+@Component
+public class ItemFuzzyIndex {
+    private final ItemDocumentStore store;
+    private final Timer fuzzyTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ItemTextTrie termTrie = new ItemTextTrie();
+
+    public ItemFuzzyIndex(ItemDocumentStore store, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.fuzzyTimer = Timer.builder("shareit.items.search.fuzzy")
+                .description("Время нечёткого поиска вещей по индексу")
+                .register(meterRegistry);
+        store.addListener(new DocumentListener());
+    }
+
+    public List<ItemDto> search(String text, long offset, int limit, boolean byRelevance) {
+        return fuzzyTimer.record(() -> store.getAll(find(ItemTextNormalizer.terms(text), offset, limit, byRelevance)));
+    }
+
+    //Каждое слово запроса должно совпасть с каким-либо словом вещи с точностью до maxDistance правок.
+    //При сортировке по релевантности вещи упорядочены по сумме расстояний, иначе - по id
+    private List<Integer> find(Set<String> terms, long offset, int limit, boolean byRelevance) {
+        if (terms.isEmpty())
+            return Collections.emptyList();
+        Map<Integer, Integer> distances = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Integer, Integer> matches = termTrie.match(term, maxDistance(term));
+                if (distances == null) {
+                    distances = matches;
+                } else {
+                    distances.keySet().retainAll(matches.keySet());
+                    distances.replaceAll((itemId, distance) -> distance + matches.get(itemId));
+                }
+                if (distances.isEmpty())
+                    return Collections.emptyList();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Comparator<Map.Entry<Integer, Integer>> order = byRelevance
+                ? Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey())
+                : Map.Entry.comparingByKey();
+        return distances.entrySet().stream()
+                .sorted(order)
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    //Короткие слова допускают меньше опечаток, иначе совпадает почти весь словарь
+    private static int maxDistance(String term) {
+        if (term.length() < 3)
+            return 0;
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    private class DocumentListener implements ItemDocumentListener {
+        @Override
+        public void clear() {
+            lock.writeLock().lock();
+            try {
+                termTrie = new ItemTextTrie();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void add(ItemDocument document) {
+            lock.writeLock().lock();
+            try {
+                document.getTerms().forEach(term -> termTrie.add(document.getId(), term));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void remove(ItemDocument document) {
+            lock.writeLock().lock();
+            try {
+                document.getTerms().forEach(term -> termTrie.remove(document.getId(), term));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
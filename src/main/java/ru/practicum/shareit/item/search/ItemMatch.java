@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+@Data
+@AllArgsConstructor
+public class ItemMatch {
+    private ItemDto item;
+    private double score;
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Подсказки наименований доступных вещей по префиксу - обход префиксного дерева наименований
+@Component
+public class ItemNameSuggester {
+    private final Timer suggestTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ItemTextTrie nameTrie = new ItemTextTrie();
+
+    public ItemNameSuggester(ItemDocumentStore store, MeterRegistry meterRegistry) {
+        this.suggestTimer = Timer.builder("shareit.items.suggest")
+                .description("Время подбора наименований вещей по префиксу")
+                .register(meterRegistry);
+        store.addListener(new DocumentListener());
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return suggestTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                return nameTrie.complete(prefix, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private class DocumentListener implements ItemDocumentListener {
+        @Override
+        public void clear() {
+            lock.writeLock().lock();
+            try {
+                nameTrie = new ItemTextTrie();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void add(ItemDocument document) {
+            lock.writeLock().lock();
+            try {
+                nameTrie.add(document.getId(), document.getTitle());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void remove(ItemDocument document) {
+            lock.writeLock().lock();
+            try {
+                nameTrie.remove(document.getId(), document.getTitle());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
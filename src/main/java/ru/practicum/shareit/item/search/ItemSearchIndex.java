@@ -0,0 +1,328 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+//Инвертированный индекс триграмм по наименованию и описанию доступных вещей.
+//Кандидаты - пересечение списков вхождений всех триграмм запроса, затем проверка подстроки,
+//поэтому результат совпадает с upper(...) like '%text%' без полного просмотра таблицы.
+//Там же списки вхождений основ слов для ранжирования BM25F и подбора вещей под запросы.
+//Документы приходят из ItemDocumentStore
+@Component
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private final ItemDocumentStore store;
+    private final Timer searchTimer;
+    private final Timer matchTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Integer, ItemDocument> documents = new TreeMap<>();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<String, Set<Integer>> stemPostings = new HashMap<>();
+    private long nameLengthTotal;
+    private long descriptionLengthTotal;
+
+    public ItemSearchIndex(ItemDocumentStore store, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.searchTimer = Timer.builder("shareit.items.search")
+                .description("Время поиска вещей по индексу")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("shareit.items.match")
+                .description("Время подбора вещей под текст запроса")
+                .register(meterRegistry);
+        store.addListener(new DocumentListener());
+    }
+
+    public boolean isReady() {
+        return store.isReady();
+    }
+
+    public List<ItemDto> search(String text, long offset, int limit, boolean byRelevance) {
+        return searchTimer.record(() -> find(ItemTextNormalizer.fold(text),
+                ItemTextNormalizer.stems(ItemTextNormalizer.terms(text)), offset, limit, byRelevance));
+    }
+
+    public List<ItemMatch> match(String text, Integer excludedOwnerId, int limit) {
+        return matchTimer.record(() -> findMatches(ItemTextNormalizer.stems(ItemTextNormalizer.terms(text)), excludedOwnerId, limit));
+    }
+
+    //Совпадение подстроки дополняется совпадением всех основ слов запроса: "дрели" находит "дрель"
+    private List<ItemDto> find(String query, Set<String> stems, long offset, int limit, boolean byRelevance) {
+        lock.readLock().lock();
+        try {
+            Set<Integer> stemMatches = new HashSet<>(intersect(stems, stemPostings));
+            Collection<ItemDocument> candidates = candidates(query);
+            if (!stemMatches.isEmpty()) {
+                NavigableMap<Integer, ItemDocument> union = new TreeMap<>();
+                candidates.forEach(document -> union.put(document.getId(), document));
+                stemMatches.forEach(itemId -> union.put(itemId, documents.get(itemId)));
+                candidates = union.values();
+            }
+            if (byRelevance)
+                return rank(query, stemMatches, candidates, offset, limit);
+            return candidates.stream()
+                    .filter(document -> matches(document, query) || stemMatches.contains(document.getId()))
+                    .skip(offset)
+                    .limit(limit)
+                    .map(ItemDocument::getItem)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //В отличие от поиска основы слов объединяются по ИЛИ: вес вещи - сумма idf совпавших основ,
+    //поэтому редкие слова описания весят больше частых. Вещи владельца excludedOwnerId не подбираются
+    private List<ItemMatch> findMatches(Set<String> stems, Integer excludedOwnerId, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String stem : stems) {
+                Set<Integer> ids = stemPostings.get(stem);
+                if (ids == null)
+                    continue;
+                double idf = Math.log(1 + (documents.size() - ids.size() + 0.5) / (ids.size() + 0.5));
+                for (Integer itemId : ids)
+                    if (!Objects.equals(documents.get(itemId).getOwnerId(), excludedOwnerId))
+                        scores.merge(itemId, idf, Double::sum);
+            }
+            int capacity = Math.min(limit, scores.size());
+            if (capacity <= 0)
+                return Collections.emptyList();
+            TopDocuments top = new TopDocuments(capacity);
+            scores.forEach((itemId, score) -> top.offer(score, documents.get(itemId)));
+            List<ItemMatch> result = new ArrayList<>();
+            for (ItemDocument document : top.drain())
+                result.add(new ItemMatch(document.getItem(), scores.get(document.getId())));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //BM25F с одним термом - строкой запроса: idf одинаков для всех найденных вещей и на порядок не влияет.
+    //В куче хранятся только offset + limit лучших вещей, подсчёт вхождений идёт по готовым строкам без выделения памяти
+    private List<ItemDto> rank(String query, Set<Integer> stemMatches, Collection<ItemDocument> candidates, long offset, int limit) {
+        int capacity = (int) Math.min(offset + limit, candidates.size());
+        if (capacity <= offset)
+            return Collections.emptyList();
+        double nameAverage = Math.max(1.0, (double) nameLengthTotal / documents.size());
+        double descriptionAverage = Math.max(1.0, (double) descriptionLengthTotal / documents.size());
+        TopDocuments top = new TopDocuments(capacity);
+        for (ItemDocument document : candidates) {
+            int nameHits = occurrences(document.getName(), query);
+            int descriptionHits = occurrences(document.getDescription(), query);
+            if (nameHits == 0 && descriptionHits == 0) {
+                //Совпавшие только по основам слов идут после совпавших по подстроке
+                if (stemMatches.contains(document.getId()))
+                    top.offer(0, document);
+                continue;
+            }
+            double frequency = NAME_WEIGHT * nameHits / (1 - B + B * document.getName().length() / nameAverage)
+                    + DESCRIPTION_WEIGHT * descriptionHits / (1 - B + B * document.getDescription().length() / descriptionAverage);
+            top.offer(frequency * (K1 + 1) / (frequency + K1), document);
+        }
+        ItemDocument[] ranked = top.drain();
+        List<ItemDto> result = new ArrayList<>();
+        for (int i = (int) offset; i < ranked.length; i++)
+            result.add(ranked[i].getItem());
+        return result;
+    }
+
+    private static int occurrences(String text, String query) {
+        int count = 0;
+        for (int i = text.indexOf(query); i >= 0; i = text.indexOf(query, i + query.length()))
+            count++;
+        return count;
+    }
+
+    //Для запросов короче триграммы индекс не сужает выборку - остаётся просмотр всех доступных вещей
+    private Collection<ItemDocument> candidates(String query) {
+        if (query.length() < GRAM_LENGTH)
+            return documents.values();
+        return intersect(grams(query), postings).stream().map(documents::get).collect(Collectors.toList());
+    }
+
+    private static List<Integer> intersect(Set<String> keys, Map<String, Set<Integer>> postings) {
+        if (keys.isEmpty())
+            return Collections.emptyList();
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String key : keys) {
+            Set<Integer> ids = postings.get(key);
+            if (ids == null)
+                return Collections.emptyList();
+            lists.add(ids);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        return lists.get(0).stream()
+                .filter(id -> lists.stream().allMatch(list -> list.contains(id)))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static void removePosting(Map<String, Set<Integer>> postings, String key, Integer itemId) {
+        Set<Integer> ids = postings.get(key);
+        if (ids == null)
+            return;
+        ids.remove(itemId);
+        if (ids.isEmpty())
+            postings.remove(key);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++)
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        return grams;
+    }
+
+    private static Set<String> grams(ItemDocument document) {
+        Set<String> grams = grams(document.getName());
+        grams.addAll(grams(document.getDescription()));
+        return grams;
+    }
+
+    private static boolean matches(ItemDocument document, String query) {
+        return document.getName().contains(query) || document.getDescription().contains(query);
+    }
+
+    private class DocumentListener implements ItemDocumentListener {
+        @Override
+        public void clear() {
+            lock.writeLock().lock();
+            try {
+                documents.clear();
+                postings.clear();
+                stemPostings.clear();
+                nameLengthTotal = 0;
+                descriptionLengthTotal = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void add(ItemDocument document) {
+            lock.writeLock().lock();
+            try {
+                documents.put(document.getId(), document);
+                document.getStems().forEach(stem -> stemPostings.computeIfAbsent(stem, key -> new HashSet<>()).add(document.getId()));
+                nameLengthTotal += document.getName().length();
+                descriptionLengthTotal += document.getDescription().length();
+                grams(document).forEach(gram -> postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.getId()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void remove(ItemDocument document) {
+            lock.writeLock().lock();
+            try {
+                documents.remove(document.getId());
+                grams(document).forEach(gram -> removePosting(postings, gram, document.getId()));
+                document.getStems().forEach(stem -> removePosting(stemPostings, stem, document.getId()));
+                nameLengthTotal -= document.getName().length();
+                descriptionLengthTotal -= document.getDescription().length();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    //Двоичная куча фиксированного размера: в корне худшая из отобранных вещей (меньший балл, при равенстве - больший id)
+    private static class TopDocuments {
+        private final double[] scores;
+        private final ItemDocument[] documents;
+        private int size;
+
+        TopDocuments(int capacity) {
+            this.scores = new double[capacity];
+            this.documents = new ItemDocument[capacity];
+        }
+
+        void offer(double score, ItemDocument document) {
+            if (size < scores.length) {
+                scores[size] = score;
+                documents[size] = document;
+                siftUp(size++);
+            } else if (worse(scores[0], documents[0], score, document)) {
+                scores[0] = score;
+                documents[0] = document;
+                siftDown(0);
+            }
+        }
+
+        //Извлечение от лучшей вещи к худшей
+        ItemDocument[] drain() {
+            ItemDocument[] result = new ItemDocument[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = documents[0];
+                size--;
+                scores[0] = scores[size];
+                documents[0] = documents[size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(scores[index], documents[index], scores[parent], documents[parent]))
+                    return;
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size)
+                    return;
+                if (child + 1 < size && worse(scores[child + 1], documents[child + 1], scores[child], documents[child]))
+                    child++;
+                if (!worse(scores[child], documents[child], scores[index], documents[index]))
+                    return;
+                swap(index, child);
+                index = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+            ItemDocument document = documents[i];
+            documents[i] = documents[j];
+            documents[j] = document;
+        }
+
+        private static boolean worse(double score, ItemDocument document, double otherScore, ItemDocument otherDocument) {
+            if (score != otherScore)
+                return score < otherScore;
+            return document.getId() > otherDocument.getId();
+        }
+    }
+}
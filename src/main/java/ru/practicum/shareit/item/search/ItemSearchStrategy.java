@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+public interface ItemSearchStrategy {
+    Page<Item> searchAvailable(String text, Pageable pageable);
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+//Нормализация текста вещей и запросов: приведение регистра, ё -> е, разбиение на слова
+//и облегчённый стемминг русских слов (отсечение самого длинного окончания при основе не короче трёх букв).
+public final class ItemTextNormalizer {
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern RUSSIAN_WORD = Pattern.compile("[а-я]+");
+    private static final int MIN_STEM_LENGTH = 3;
+    //Окончания прилагательных и существительных, от длинных к коротким. Глагольные окончания не отсекаются:
+    //в наименованиях вещей глаголы редки, а "-ли", "-ла" портят основы существительных ("дрели")
+    private static final List<String> ENDINGS = List.of(
+            "иями", "ями", "ами", "ией", "иях", "ием", "иям", "ыми", "ими", "его", "ого", "ему", "ому",
+            "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом", "их", "ых",
+            "ую", "юю", "ая", "яя", "ою", "ею", "ев", "ов", "ье", "еи", "ии", "ям", "ам", "ах", "ях", "ию", "ью",
+            "ия", "ья",
+            "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я");
+
+    private ItemTextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        if (text == null)
+            return terms;
+        for (String term : TERM_SEPARATOR.split(fold(text)))
+            if (!term.isEmpty())
+                terms.add(term);
+        return terms;
+    }
+
+    static Set<String> stems(Set<String> terms) {
+        Set<String> stems = new HashSet<>();
+        for (String term : terms)
+            stems.add(stem(term));
+        return stems;
+    }
+
+    static String stem(String term) {
+        if (!RUSSIAN_WORD.matcher(term).matches())
+            return term;
+        for (String ending : ENDINGS)
+            if (term.endsWith(ending) && term.length() - ending.length() >= MIN_STEM_LENGTH)
+                return term.substring(0, term.length() - ending.length());
+        return term;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//Префиксное дерево по строкам вещей: наименованиям для подсказок и словам для нечёткого поиска.
+//Дочерние узлы хранятся в отсортированных массивах, поэтому обход в глубину сразу выдаёт строки в алфавитном порядке.
+//Синхронизацию обеспечивает представление, которому принадлежит дерево.
+class ItemTextTrie {
+    private final Node root = new Node();
+
+    void add(Integer itemId, String text) {
+        Node node = root;
+        for (char key : ItemTextNormalizer.fold(text.trim()).toCharArray())
+            node = node.getOrAddChild(key);
+        if (node.values == null)
+            node.values = new TreeMap<>();
+        node.values.put(itemId, text);
+    }
+
+    void remove(Integer itemId, String text) {
+        String key = ItemTextNormalizer.fold(text.trim());
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].getChild(key.charAt(i));
+            if (path[i + 1] == null)
+                return;
+        }
+        Node node = path[key.length()];
+        if (node.values == null || node.values.remove(itemId) == null)
+            return;
+        if (node.values.isEmpty())
+            node.values = null;
+        for (int i = key.length(); i > 0 && path[i].isEmpty(); i--)
+            path[i - 1].removeChild(key.charAt(i - 1));
+    }
+
+    List<String> complete(String prefix, int limit) {
+        Node node = root;
+        for (char key : ItemTextNormalizer.fold(prefix.trim()).toCharArray()) {
+            node = node.getChild(key);
+            if (node == null)
+                return new ArrayList<>();
+        }
+        List<String> result = new ArrayList<>();
+        collect(node, result, limit);
+        return result;
+    }
+
+    //Обход с построчным расчётом расстояния Левенштейна: ветка отсекается, как только минимум строки превысил maxDistance,
+    //поэтому просматривается только малая часть словаря. Результат - минимальное расстояние по каждой вещи.
+    Map<Integer, Integer> match(String text, int maxDistance) {
+        String key = ItemTextNormalizer.fold(text.trim());
+        int[] row = new int[key.length() + 1];
+        for (int i = 0; i < row.length; i++)
+            row[i] = i;
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int i = 0; i < root.size; i++)
+            match(root.children[i], root.keys[i], key, row, maxDistance, result);
+        return result;
+    }
+
+    private void match(Node node, char symbol, String key, int[] previous, int maxDistance, Map<Integer, Integer> result) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        int min = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int cost = key.charAt(i - 1) == symbol ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            min = Math.min(min, row[i]);
+        }
+        int distance = row[key.length()];
+        if (node.values != null && distance <= maxDistance)
+            node.values.keySet().forEach(itemId -> result.merge(itemId, distance, Math::min));
+        if (min > maxDistance)
+            return;
+        for (int i = 0; i < node.size; i++)
+            match(node.children[i], node.keys[i], key, row, maxDistance, result);
+    }
+
+    private void collect(Node node, List<String> result, int limit) {
+        if (node.values != null && result.size() < limit)
+            result.add(node.values.firstEntry().getValue());
+        for (int i = 0; i < node.size && result.size() < limit; i++)
+            collect(node.children[i], result, limit);
+    }
+
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int size;
+        //Идентификаторы вещей с этой строкой и её исходное написание
+        private TreeMap<Integer, String> values;
+
+        Node getChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrAddChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0)
+                return children[index];
+            index = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(2, size * 2));
+                children = Arrays.copyOf(children, keys.length);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(children, index, children, index + 1, size - index);
+            Node child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            size++;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0)
+                return;
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(children, index + 1, children, index, size - index - 1);
+            size--;
+            children[size] = null;
+        }
+
+        boolean isEmpty() {
+            return size == 0 && values == null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+@Component
+@ConditionalOnExpression("'${spring.sql.init.platform:}' != 'postgresql'")
+@RequiredArgsConstructor
+public class LikeItemSearchStrategy implements ItemSearchStrategy {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Page<Item> searchAvailable(String text, Pageable pageable) {
+        return itemRepository.searchByText(true, text, pageable);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+//Платформа postgresql подключает schema-postgresql.sql с частичными GIN-индексами pg_trgm,
+//запрос повторяет их выражения, чтобы like '%text%' выполнялся по индексу, а не полным просмотром
+@Component
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "postgresql")
+@RequiredArgsConstructor
+public class PostgresItemSearchStrategy implements ItemSearchStrategy {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Page<Item> searchAvailable(String text, Pageable pageable) {
+        //Порядок по id задан в самом запросе
+        return itemRepository.searchAvailableByTrigram(text,
+                pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//Календари занятости по вещам. Результат, посчитанный до изменения бронирований вещи, в кэш не попадает:
+//каждая запись помнит момент последнего сброса, а загрузка - момент своего начала
+@Component
+public class ItemAvailabilityCache {
+    private static final int MAX_ITEMS = 1000;
+    private static final int MAX_WINDOWS_PER_ITEM = 16;
+    private final Map<Integer, ItemEntry> items = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ItemEntry> eldest) {
+            return size() > MAX_ITEMS;
+        }
+    };
+    private long clock;
+
+    public ItemAvailabilityDto get(Integer itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting,
+                                   Supplier<ItemAvailabilityDto> loader) {
+        Window window = new Window(from, to, includeWaiting);
+        long stamp;
+        synchronized (this) {
+            ItemEntry entry = items.computeIfAbsent(itemId, id -> new ItemEntry(clock));
+            ItemAvailabilityDto cached = entry.getWindows().get(window);
+            if (cached != null)
+                return cached;
+            stamp = clock;
+        }
+        ItemAvailabilityDto result = loader.get();
+        synchronized (this) {
+            ItemEntry entry = items.get(itemId);
+            if (entry != null && entry.getCreated() <= stamp && entry.getInvalidated() <= stamp)
+                entry.getWindows().put(window, result);
+        }
+        return result;
+    }
+
+    public void invalidate(Integer itemId) {
+        evict(itemId);
+        //Повторный сброс после завершения транзакции: читатели могли закэшировать ещё не зафиксированное состояние
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(itemId);
+                }
+            });
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidate(event.getItemId());
+    }
+
+    private synchronized void evict(Integer itemId) {
+        clock++;
+        ItemEntry entry = items.get(itemId);
+        if (entry != null) {
+            entry.getWindows().clear();
+            entry.setInvalidated(clock);
+        }
+    }
+
+    @Data
+    private static class ItemEntry {
+        private final long created;
+        private long invalidated;
+        private final Map<Window, ItemAvailabilityDto> windows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Window, ItemAvailabilityDto> eldest) {
+                return size() > MAX_WINDOWS_PER_ITEM;
+            }
+        };
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Window {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private boolean includeWaiting;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+
+public interface ItemAvailabilityService {
+    ItemAvailabilityDto get(Integer itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting);
+}
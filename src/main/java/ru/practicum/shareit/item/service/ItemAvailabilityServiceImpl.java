@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemAvailabilityServiceImpl implements ItemAvailabilityService {
+    private static final int MAX_RANGE_DAYS = 366;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemAvailabilityCache itemAvailabilityCache;
+
+    @Override
+    public ItemAvailabilityDto get(Integer itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting) {
+        log.info("Получение календаря занятости вещи {} с {} по {}", itemId, from, to);
+        if (!from.isBefore(to) || from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            log.error("Неверно задан период календаря занятости вещи {}: с {} по {}", itemId, from, to);
+            throw new ValidationException(String.format("Неверно задан период календаря занятости вещи %d: с %s по %s", itemId, from, to));
+        }
+        if (!itemRepository.existsById(itemId)) {
+            log.error("Вещь с идентификатором {} не найдена!", itemId);
+            throw new NotFoundException(String.format("Вещь с идентификатором %d не найдена!", itemId));
+        }
+        return itemAvailabilityCache.get(itemId, from, to, includeWaiting, () -> calculate(itemId, from, to, includeWaiting));
+    }
+
+    private ItemAvailabilityDto calculate(Integer itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting) {
+        List<BookingStatus> statuses = includeWaiting
+                ? List.of(BookingStatus.APPROVED, BookingStatus.WAITING)
+                : List.of(BookingStatus.APPROVED);
+        List<BookingPeriod> periods = bookingRepository.findAllPeriodsByItemInRange(itemId, statuses, from, to);
+        List<IntervalDto> busy = new ArrayList<>();
+        List<IntervalDto> free = new ArrayList<>();
+        //Периоды упорядочены по началу, поэтому слияние и поиск свободных окон выполняются за один проход
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = from;
+        for (BookingPeriod period : periods) {
+            LocalDateTime start = period.getStart().isBefore(from) ? from : period.getStart();
+            LocalDateTime end = period.getEnd().isAfter(to) ? to : period.getEnd();
+            if (!start.isBefore(end))
+                continue;
+            if (busyStart != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd))
+                    busyEnd = end;
+                continue;
+            }
+            if (busyStart != null)
+                busy.add(new IntervalDto(busyStart, busyEnd));
+            if (busyEnd.isBefore(start))
+                free.add(new IntervalDto(busyEnd, start));
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyStart != null)
+            busy.add(new IntervalDto(busyStart, busyEnd));
+        if (busyEnd.isBefore(to))
+            free.add(new IntervalDto(busyEnd, to));
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .from(from)
+                .to(to)
+                .busy(busy)
+                .free(free)
+                .build();
+    }
+}
@@ -14,5 +14,7 @@ public interface ItemService {
 
     List<ItemDtoExtended> getAllByUserExtended(Integer userId, Integer from, Integer size);
 
-    List<ItemDto> getAvailableByText(String text, Integer from, Integer size);
+    List<ItemDto> getAvailableByText(String text, Integer from, Integer size, String sort, Boolean fuzzy);
+
+    List<String> suggestNames(String prefix, Integer size);
 }
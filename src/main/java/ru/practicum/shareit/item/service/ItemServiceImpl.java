@@ -1,28 +1,36 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
-import ru.practicum.shareit.booking.Booking;
-import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.AdjacentBooking;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
-import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
-import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoExtended;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.event.ItemCreatedEvent;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemDocumentStore;
+import ru.practicum.shareit.item.search.ItemFuzzyIndex;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchStrategy;
+import ru.practicum.shareit.item.search.ItemTextNormalizer;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.User;
@@ -30,8 +38,9 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -39,14 +48,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class ItemServiceImpl implements ItemService {
+    private static final int MAX_SUGGEST_SIZE = 50;
+    private static final String ITEM_VIEW_TIMER = "shareit.items.get";
+    //В карточке и списке вещей только последние отзывы, остальные - через GET /items/{itemId}/comments
+    private static final int ITEM_COMMENTS_LIMIT = 10;
     private final ItemMapper itemMapper;
     private final BookingMapper bookingMapper;
-    private final CommentMapper commentMapper;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final RequestRepository requestRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
+    private final ItemDocumentStore itemDocumentStore;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemFuzzyIndex itemFuzzyIndex;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemSearchStrategy itemSearchStrategy;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ItemDto add(ItemDto itemDto, Integer userId) {
@@ -60,7 +79,10 @@ public class ItemServiceImpl implements ItemService {
                 ? requestRepository.findById(itemDto.getRequestId()).orElse(null)
                 : null;
         Item item = itemMapper.fromDto(itemDto, owner, request);
-        return itemMapper.toDto(itemRepository.saveAndFlush(item));
+        ItemDto result = itemMapper.toDto(itemRepository.saveAndFlush(item));
+        itemDocumentStore.put(result);
+        eventPublisher.publishEvent(new ItemCreatedEvent(result, request != null ? request.getRequestor().getId() : null));
+        return result;
     }
 
     @Override
@@ -85,27 +107,43 @@ public class ItemServiceImpl implements ItemService {
             item.setDescription(itemDto.getDescription());
         if (itemDto.getAvailable() != null)
             item.setAvailable(itemDto.getAvailable());
-        return itemMapper.toDto(itemRepository.saveAndFlush(item));
+        ItemDto result = itemMapper.toDto(itemRepository.saveAndFlush(item));
+        itemDocumentStore.put(result);
+        return result;
     }
 
+    //Для владельца три запроса: вещь, комментарии проекцией в CommentDto и оба соседних бронирования одним запросом
     @Override
     public ItemDtoExtended get(Integer itemId, Integer userId) {
         log.info("Поиск вещи по идентификатору {}", itemId);
-        Item item = itemRepository.findById(itemId).orElse(null);
-        if (item == null) {
-            log.error("Вещь с идентификатором {} не найдена!", itemId);
-            throw new NotFoundException(String.format("Вещь с идентификатором %d не найдена!", itemId));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        //Таймер останавливается при любом исходе, иначе промахи и ошибки не попадают в метрику
+        String view = "error";
+        try {
+            Item item = itemRepository.findById(itemId).orElse(null);
+            if (item == null) {
+                view = "missing";
+                log.error("Вещь с идентификатором {} не найдена!", itemId);
+                throw new NotFoundException(String.format("Вещь с идентификатором %d не найдена!", itemId));
+            }
+            List<CommentDto> comments = commentRepository.findAllDtoByItemId(itemId, PageRequest.of(0, ITEM_COMMENTS_LIMIT));
+            if (!Objects.equals(item.getOwner().getId(), userId)) {
+                view = "viewer";
+                return itemMapper.toDtoExtended(item, comments);
+            }
+            BookingDto nextBooking = null;
+            BookingDto lastBooking = null;
+            for (AdjacentBooking booking : bookingRepository.findAdjacentApproved(List.of(itemId), LocalDateTime.now())) {
+                if (booking.getKind() == AdjacentBooking.Kind.NEXT)
+                    nextBooking = bookingMapper.toInDto(booking);
+                else
+                    lastBooking = bookingMapper.toInDto(booking);
+            }
+            view = "owner";
+            return itemMapper.toDtoExtended(item, nextBooking, lastBooking, comments);
+        } finally {
+            sample.stop(meterRegistry.timer(ITEM_VIEW_TIMER, "view", view));
         }
-        List<CommentDto> comments = commentRepository.getAllByItemOrderByCreatedDesc(item).stream().map(commentMapper::toDto).collect(Collectors.toList());
-        if (!Objects.equals(item.getOwner().getId(), userId))
-            return itemMapper.toDtoExtended(item, comments);
-        LocalDateTime now = LocalDateTime.now();
-        Booking nextBooking = bookingRepository.findFirstByItemAndStatusAndStartIsAfterOrderByStart(item, BookingStatus.APPROVED, now);
-        Booking lastBooking = bookingRepository.findFirstByItemAndStatusAndStartIsBeforeOrderByEndDesc(item, BookingStatus.APPROVED, now);
-        return itemMapper.toDtoExtended(item,
-                nextBooking != null ? bookingMapper.toInDto(nextBooking) : null,
-                lastBooking != null ? bookingMapper.toInDto(lastBooking) : null,
-                comments);
     }
 
     @Override
@@ -126,29 +164,27 @@ public class ItemServiceImpl implements ItemService {
         }
         Pageable pageable = (from == null || size == null ? Pageable.unpaged() : PageRequest.of(from / size, size, Sort.by("id")));
         List<Item> items = itemRepository.findAllByOwner(owner, pageable).toList();
-        List<Booking> bookingList = bookingRepository.findAllByItemInOrderByStartDesc(items);
         LocalDateTime now = LocalDateTime.now();
-        List<Comment> commentList = commentRepository.getAllByOwner(owner);
-        return items.stream().map(item -> {
-            Booking nextBooking = bookingList.stream()
-                    .filter(x -> Objects.equals(x.getItem().getId(), item.getId()) && x.getStart().isAfter(now) && x.getStatus() == BookingStatus.APPROVED).min(Comparator.comparing(Booking::getStart)).orElse(null);
-            Booking lastBooking = bookingList.stream()
-                    .filter(x -> Objects.equals(x.getItem().getId(), item.getId()) && x.getStart().isBefore(now) && x.getStatus() == BookingStatus.APPROVED).max(Comparator.comparing(Booking::getEnd)).orElse(null);
-            List<CommentDto> comments = commentList.stream()
-                    .filter(x -> Objects.equals(x.getItem().getId(), item.getId()))
-                    .sorted(Comparator.comparing(Comment::getCreated).reversed())
-                    .map(commentMapper::toDto)
-                    .collect(Collectors.toList());
-            return itemMapper.toDtoExtended(item,
-                    nextBooking != null ? bookingMapper.toInDto(nextBooking) : null,
-                    lastBooking != null ? bookingMapper.toInDto(lastBooking) : null,
-                    comments);
-        }).collect(Collectors.toList());
+        Map<Integer, BookingDto> nextBookings = new HashMap<>();
+        Map<Integer, BookingDto> lastBookings = new HashMap<>();
+        List<Integer> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        for (AdjacentBooking booking : bookingRepository.findAdjacentApproved(itemIds, now))
+            (booking.getKind() == AdjacentBooking.Kind.NEXT ? nextBookings : lastBookings)
+                    .put(booking.getItemId(), bookingMapper.toInDto(booking));
+        Map<Integer, List<CommentDto>> comments = commentRepository.findLatestDtoByItemIds(itemIds, ITEM_COMMENTS_LIMIT).stream()
+                .collect(Collectors.groupingBy(CommentDto::getItemId));
+        return items.stream()
+                .map(item -> itemMapper.toDtoExtended(item,
+                        nextBookings.get(item.getId()),
+                        lastBookings.get(item.getId()),
+                        comments.getOrDefault(item.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
     }
 
     @Override
-    public List<ItemDto> getAvailableByText(String text, Integer from, Integer size) {
+    public List<ItemDto> getAvailableByText(String text, Integer from, Integer size, String sort, Boolean fuzzy) {
         log.info("Поиск вещей по описанию с текстом {}", text);
+        boolean byRelevance = isRelevanceSort(sort);
         if (Strings.isBlank(text))
             return new ArrayList<>();
         if (from != null && from < 0) {
@@ -159,8 +195,44 @@ public class ItemServiceImpl implements ItemService {
             log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
             throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
         }
+        if (itemDocumentStore.isReady() && Boolean.TRUE.equals(fuzzy))
+            return from == null || size == null
+                    ? itemFuzzyIndex.search(text, 0, Integer.MAX_VALUE, byRelevance)
+                    : itemFuzzyIndex.search(text, (long) (from / size) * size, size, byRelevance);
+        if (itemDocumentStore.isReady())
+            return from == null || size == null
+                    ? itemSearchIndex.search(text, 0, Integer.MAX_VALUE, byRelevance)
+                    : itemSearchIndex.search(text, (long) (from / size) * size, size, byRelevance);
+        //Без индекса релевантность и нечёткий поиск не вычисляются, результат - точный поиск по id
         Pageable pageable = (from == null || size == null ? Pageable.unpaged() : PageRequest.of(from / size, size, Sort.by("id")));
-        return itemRepository.searchByText(true, text, pageable)
+        return itemSearchStrategy.searchAvailable(text, pageable)
                 .stream().map(itemMapper::toDto).collect(Collectors.toList());
     }
+
+    @Override
+    public List<String> suggestNames(String prefix, Integer size) {
+        log.info("Подбор наименований вещей по префиксу {}", prefix);
+        if (Strings.isBlank(prefix))
+            return new ArrayList<>();
+        if (size <= 0 || size > MAX_SUGGEST_SIZE) {
+            log.error("Количество подсказок должно быть от 1 до {}! Текущее значение {}", MAX_SUGGEST_SIZE, size);
+            throw new ValidationException(String.format("Количество подсказок должно быть от 1 до %d! Текущее значение %d", MAX_SUGGEST_SIZE, size));
+        }
+        if (itemDocumentStore.isReady())
+            return itemNameSuggester.suggest(prefix, size);
+        return itemRepository.findAvailableNamesByPrefix(escapeLike(ItemTextNormalizer.fold(prefix.trim())), PageRequest.of(0, size));
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private boolean isRelevanceSort(String sort) {
+        if (sort == null || "id".equalsIgnoreCase(sort))
+            return false;
+        if ("relevance".equalsIgnoreCase(sort))
+            return true;
+        log.error("Неизвестный порядок сортировки результатов поиска {}!", sort);
+        throw new ValidationException(String.format("Неизвестный порядок сортировки результатов поиска %s!", sort));
+    }
 }
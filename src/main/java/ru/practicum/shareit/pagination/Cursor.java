@@ -0,0 +1,39 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+//Позиция в выборке, упорядоченной по (время, идентификатор) по убыванию
+@Data
+@AllArgsConstructor
+public class Cursor {
+    private static final String SEPARATOR = "|";
+    private LocalDateTime timestamp;
+    private Integer id;
+
+    public String encode() {
+        //Точность хранения времени в БД - микросекунды
+        String value = timestamp.truncatedTo(ChronoUnit.MICROS) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.lastIndexOf(SEPARATOR);
+            return new Cursor(LocalDateTime.parse(value.substring(0, separatorIndex)),
+                    Integer.valueOf(value.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new ValidationException(String.format("Некорректное значение курсора %s", cursor));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private List<T> items;
+    private String nextCursor;
+
+    //Выборка запрашивается с запасом в один элемент: его наличие означает, что есть следующая страница
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> cursorExtractor) {
+        if (rows.size() <= size)
+            return new CursorPage<>(rows, null);
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, cursorExtractor.apply(items.get(size - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (nextCursor != null)
+            builder.header(NEXT_CURSOR_HEADER, nextCursor);
+        return builder.body(items);
+    }
+}
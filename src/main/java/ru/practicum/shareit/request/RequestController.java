@@ -1,9 +1,14 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoExtended;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.service.RequestItemStream;
 import ru.practicum.shareit.request.service.RequestService;
 
 import javax.validation.Valid;
@@ -14,26 +19,46 @@ import java.util.List;
 @RequestMapping(path = "/requests")
 public class RequestController {
     private final RequestService requestService;
+    private final RequestItemStream requestItemStream;
 
     @PostMapping()
     public RequestDto add(@RequestHeader("X-Sharer-User-Id") Integer userId, @RequestBody @Valid RequestDto requestDto) {
         return requestService.add(requestDto, userId);
     }
 
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        return requestItemStream.subscribe(userId);
+    }
+
     @GetMapping(path = "/{requestId}")
     public RequestDtoExtended getById(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable(name = "requestId") Integer requestId) {
         return requestService.getById(requestId, userId);
     }
 
+    @GetMapping(path = "/{requestId}/suggestions")
+    public List<RequestSuggestionDto> getSuggestions(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable(name = "requestId") Integer requestId) {
+        return requestService.getSuggestions(requestId, userId);
+    }
+
     @GetMapping()
-    public List<RequestDtoExtended> getAllByUserId(@RequestHeader("X-Sharer-User-Id") Integer userId) {
-        return requestService.getAllByUserId(userId);
+    public ResponseEntity<List<RequestDtoExtended>> getAllByUserId(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                                   @RequestParam(name = "cursor", required = false) String cursor,
+                                                                   @RequestParam(name = "size", required = false) Integer size) {
+        //Без параметров - все запросы пользователя, иначе постраничная выдача по курсору
+        if (cursor != null || size != null)
+            return requestService.getPageByUserId(userId, cursor, size).toResponse();
+        return ResponseEntity.ok(requestService.getAllByUserId(userId));
     }
 
     @GetMapping(path = "/all")
-    public List<RequestDtoExtended> getAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                           @RequestParam(name = "from", required = false) Integer from,
-                                           @RequestParam(name = "size", required = false) Integer size) {
-        return requestService.getAll(userId, from, size);
+    public ResponseEntity<List<RequestDtoExtended>> getAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                           @RequestParam(name = "from", required = false) Integer from,
+                                                           @RequestParam(name = "size", required = false) Integer size,
+                                                           @RequestParam(name = "cursor", required = false) String cursor) {
+        //Без номера первого элемента - постраничная выдача по курсору, следующая страница в заголовке X-Next-Cursor
+        if (cursor != null || (from == null && size != null))
+            return requestService.getAllByCursor(userId, cursor, size).toResponse();
+        return ResponseEntity.ok(requestService.getAll(userId, from, size));
     }
 }
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "request_suggestions")
+public class RequestSuggestion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    @ManyToOne
+    @JoinColumn(name = "request_id")
+    private Request request;
+    @ManyToOne
+    @JoinColumn(name = "item_id")
+    private Item item;
+    private Double score;
+    private LocalDateTime created;
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof RequestSuggestion && Objects.equals(((RequestSuggestion) obj).id, this.id);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.request.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RequestSuggestionDto {
+    private Integer itemId;
+    private String name;
+    private String description;
+    private Integer ownerId;
+    private Double score;
+
+    public RequestSuggestionDto(@JsonProperty("itemId") Integer itemId,
+                                @JsonProperty("name") String name,
+                                @JsonProperty("description") String description,
+                                @JsonProperty("ownerId") Integer ownerId,
+                                @JsonProperty("score") Double score) {
+        this.itemId = itemId;
+        this.name = name;
+        this.description = description;
+        this.ownerId = ownerId;
+        this.score = score;
+    }
+}
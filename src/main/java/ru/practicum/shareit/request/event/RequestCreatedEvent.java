@@ -0,0 +1,13 @@
+package ru.practicum.shareit.request.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//Публикуется при создании запроса на вещь
+@Data
+@AllArgsConstructor
+public class RequestCreatedEvent {
+    private Integer requestId;
+    private Integer requestorId;
+    private String description;
+}
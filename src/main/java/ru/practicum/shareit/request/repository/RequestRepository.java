@@ -1,15 +1,33 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.user.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<Request, Integer> {
     List<Request> findAllByRequestorOrderByCreatedDesc(User requestor);
 
-    Page<Request> findAllByRequestorIsNot(User requestor, Pageable pageable);
+    List<Request> findAllByRequestorOrderByCreatedDescIdDesc(User requestor, Pageable pageable);
+
+    @Query(" from Request r" +
+            " where r.requestor = :requestor" +
+            " and (r.created < :created or (r.created = :created and r.id < :id))" +
+            " order by r.created desc, r.id desc")
+    List<Request> findAllByRequestorBefore(User requestor, LocalDateTime created, Integer id, Pageable pageable);
+
+    Slice<Request> findAllByRequestorIsNot(User requestor, Pageable pageable);
+
+    List<Request> findAllByRequestorIsNotOrderByCreatedDescIdDesc(User requestor, Pageable pageable);
+
+    @Query(" from Request r" +
+            " where r.requestor <> :requestor" +
+            " and (r.created < :created or (r.created = :created and r.id < :id))" +
+            " order by r.created desc, r.id desc")
+    List<Request> findAllByRequestorIsNotBefore(User requestor, LocalDateTime created, Integer id, Pageable pageable);
 }
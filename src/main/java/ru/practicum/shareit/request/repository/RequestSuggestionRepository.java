@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.RequestSuggestion;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+
+import java.util.List;
+
+public interface RequestSuggestionRepository extends JpaRepository<RequestSuggestion, Integer> {
+    //Вещи, ставшие недоступными после подбора, не показываются
+    @Query("select new ru.practicum.shareit.request.dto.RequestSuggestionDto(i.id, i.name, i.description, i.owner.id, s.score)" +
+            " from RequestSuggestion s join s.item i" +
+            " where s.request.id = :requestId and i.available = true" +
+            " order by s.score desc, i.id")
+    List<RequestSuggestionDto> findAllDtoByRequestId(Integer requestId);
+
+    @Modifying
+    @Query("delete from RequestSuggestion s where s.request.id = :requestId")
+    void deleteAllByRequestId(Integer requestId);
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.request.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.common.SseHub;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.event.ItemCreatedEvent;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.annotation.PreDestroy;
+
+//Поток событий о новых вещах по запросам пользователя. Подписка - это SseEmitter в асинхронном режиме сервлета,
+//поток на соединение не выделяется. Создание вещи и пульс только ставят событие в очередь SseHub,
+//поэтому медленный клиент не задерживает POST /items и планировщик
+@Component
+@Slf4j
+public class RequestItemStream {
+    private final UserRepository userRepository;
+    private final SseHub<Integer> hub;
+
+    public RequestItemStream(UserRepository userRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${shareit.requests.stream.timeout:1800000}") long timeout,
+                             @Value("${shareit.requests.stream.queue-capacity:100}") int queueCapacity,
+                             @Value("${shareit.requests.stream.threads:2}") int threads) {
+        this.userRepository = userRepository;
+        this.hub = new SseHub<>("shareit.requests.stream", meterRegistry, timeout, queueCapacity, threads);
+    }
+
+    public SseEmitter subscribe(Integer userId) {
+        log.info("Подписка пользователя {} на новые вещи по запросам", userId);
+        if (!userRepository.existsById(userId)) {
+            log.error("Не найден пользователь {} для подписки на новые вещи!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для подписки на новые вещи!", userId));
+        }
+        return hub.subscribe(userId);
+    }
+
+    public int size() {
+        return hub.size();
+    }
+
+    //Событие уходит подписчикам только после фиксации транзакции, создавшей вещь
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemCreated(ItemCreatedEvent event) {
+        if (event.getRequestorId() == null)
+            return;
+        hub.publish(event.getRequestorId(), () -> SseEmitter.event()
+                .id(String.valueOf(event.getItem().getId()))
+                .name("item")
+                .data(event.getItem()));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.requests.stream.heartbeat:15000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.request.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemMatch;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.request.RequestSuggestion;
+import ru.practicum.shareit.request.event.RequestCreatedEvent;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//Подбор уже существующих вещей под новые запросы. Запрос обрабатывается после фиксации транзакции его создания
+//в отдельном пуле с ограниченной очередью: при переполнении подбор пропускается, а не задерживает создание запросов
+@Component
+@Slf4j
+public class RequestMatcher {
+    private final RequestRepository requestRepository;
+    private final ItemRepository itemRepository;
+    private final RequestSuggestionRepository suggestionRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+    private final int limit;
+
+    public RequestMatcher(RequestRepository requestRepository,
+                          ItemRepository itemRepository,
+                          RequestSuggestionRepository suggestionRepository,
+                          ItemSearchIndex itemSearchIndex,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shareit.requests.matching.threads:2}") int threads,
+                          @Value("${shareit.requests.matching.queue-capacity:100}") int queueCapacity,
+                          @Value("${shareit.requests.matching.limit:10}") int limit) {
+        this.requestRepository = requestRepository;
+        this.itemRepository = itemRepository;
+        this.suggestionRepository = suggestionRepository;
+        this.itemSearchIndex = itemSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("request-matcher-"));
+        this.rejectedCounter = Counter.builder("shareit.requests.matching.rejected")
+                .description("Запросы, подбор вещей для которых пропущен из-за переполнения очереди")
+                .register(meterRegistry);
+        this.limit = limit;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRequestCreated(RequestCreatedEvent event) {
+        try {
+            executor.execute(() -> {
+                try {
+                    match(event);
+                } catch (RuntimeException e) {
+                    log.error("Ошибка подбора вещей для запроса {}", event.getRequestId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Очередь подбора вещей переполнена, запрос {} пропущен", event.getRequestId());
+        }
+    }
+
+    //Повторный подбор для того же запроса заменяет предыдущий результат
+    public int match(RequestCreatedEvent event) {
+        if (!itemSearchIndex.isReady()) {
+            log.info("Поисковый индекс вещей не готов, подбор для запроса {} пропущен", event.getRequestId());
+            return 0;
+        }
+        List<ItemMatch> matches = itemSearchIndex.match(event.getDescription(), event.getRequestorId(), limit);
+        Integer saved = transactionTemplate.execute(status -> {
+            Request request = requestRepository.findById(event.getRequestId()).orElse(null);
+            if (request == null)
+                return 0;
+            suggestionRepository.deleteAllByRequestId(request.getId());
+            LocalDateTime now = LocalDateTime.now();
+            for (ItemMatch match : matches)
+                suggestionRepository.save(new RequestSuggestion(null, request,
+                        itemRepository.getReferenceById(match.getItem().getId()), match.getScore(), now));
+            return matches.size();
+        });
+        log.info("Для запроса {} подобрано вещей: {}", event.getRequestId(), saved);
+        return saved != null ? saved : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,7 +1,9 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoExtended;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
 
 import java.util.List;
 
@@ -12,5 +14,11 @@ public interface RequestService {
 
     List<RequestDtoExtended> getAllByUserId(Integer userId);
 
+    CursorPage<RequestDtoExtended> getPageByUserId(Integer userId, String cursor, Integer size);
+
+    List<RequestSuggestionDto> getSuggestions(Integer requestId, Integer userId);
+
     List<RequestDtoExtended> getAll(Integer userId, Integer from, Integer size);
+
+    CursorPage<RequestDtoExtended> getAllByCursor(Integer userId, String cursor, Integer size);
 }
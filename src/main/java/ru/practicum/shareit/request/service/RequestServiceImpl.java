@@ -2,28 +2,37 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoExtended;
 import ru.practicum.shareit.request.dto.RequestMapper;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.event.RequestCreatedEvent;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -31,11 +40,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class RequestServiceImpl implements RequestService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
     private final RequestRepository requestRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final RequestMapper requestMapper;
     private final ItemMapper itemMapper;
+    private final RequestSuggestionRepository suggestionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public RequestDto add(RequestDto requestDto, Integer userId) {
@@ -46,7 +58,29 @@ public class RequestServiceImpl implements RequestService {
             throw new NotFoundException(String.format("Не найден пользователь %d для создания запроса!", userId));
         }
         requestDto.setCreated(LocalDateTime.now());
-        return requestMapper.toInDto(requestRepository.saveAndFlush(requestMapper.fromDto(requestDto, requestor)));
+        RequestDto result = requestMapper.toInDto(requestRepository.saveAndFlush(requestMapper.fromDto(requestDto, requestor)));
+        //Подбор подходящих вещей выполняется асинхронно, см. RequestMatcher
+        eventPublisher.publishEvent(new RequestCreatedEvent(result.getId(), requestor.getId(), result.getDescription()));
+        return result;
+    }
+
+    @Override
+    public List<RequestSuggestionDto> getSuggestions(Integer requestId, Integer userId) {
+        log.info("Получение подобранных вещей для запроса {} пользователем {}", requestId, userId);
+        if (!userRepository.existsById(userId)) {
+            log.error("Не найден пользователь {} для получения подобранных вещей!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для получения подобранных вещей!", userId));
+        }
+        Request request = requestRepository.findById(requestId).orElse(null);
+        if (request == null) {
+            log.error("Не найден запрос по идентификатору {}", requestId);
+            throw new NotFoundException(String.format("Не найден запрос по идентификатору %d!", requestId));
+        }
+        if (!Objects.equals(request.getRequestor().getId(), userId)) {
+            log.error("Подобранные вещи для запроса {} доступны только его автору, а не пользователю {}!", requestId, userId);
+            throw new ForbiddenException(String.format("Подобранные вещи для запроса %d доступны только его автору, а не пользователю %d!", requestId, userId));
+        }
+        return suggestionRepository.findAllDtoByRequestId(requestId);
     }
 
     @Override
@@ -74,14 +108,28 @@ public class RequestServiceImpl implements RequestService {
             throw new NotFoundException(String.format("Не найден пользователь %d для получения запросов!", userId));
         }
         List<Request> requests = requestRepository.findAllByRequestorOrderByCreatedDesc(requestor);
-        List<Item> items = itemRepository.findAllByRequestor(requestor);
-        return requests.stream().map(request -> {
-            List<ItemDto> requestItems = items.stream()
-                    .filter(item -> Objects.equals(item.getRequest().getId(), request.getId()))
-                    .map(itemMapper::toDto)
-                    .collect(Collectors.toList());
-            return requestMapper.toOutDto(request, requestItems);
-        }).collect(Collectors.toList());
+        return toOutDtos(requests, itemRepository.findAllByRequestor(requestor));
+    }
+
+    @Override
+    public CursorPage<RequestDtoExtended> getPageByUserId(Integer userId, String cursor, Integer size) {
+        User requestor = userRepository.findById(userId).orElse(null);
+        if (requestor == null) {
+            log.error("Не найден пользователь {} для получения запросов!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для получения запросов!", userId));
+        }
+        if (size != null && size <= 0) {
+            log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
+            throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
+        }
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        Cursor after = Cursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Request> rows = after == null
+                ? requestRepository.findAllByRequestorOrderByCreatedDescIdDesc(requestor, pageable)
+                : requestRepository.findAllByRequestorBefore(requestor, after.getTimestamp(), after.getId(), pageable);
+        CursorPage<Request> page = CursorPage.of(rows, pageSize, request -> new Cursor(request.getCreated(), request.getId()));
+        return new CursorPage<>(toOutDtos(page.getItems()), page.getNextCursor());
     }
 
     @Override
@@ -103,14 +151,45 @@ public class RequestServiceImpl implements RequestService {
         }
         int pageNum = from / size;
         Pageable pageable = PageRequest.of(pageNum, size, Sort.by("created").descending());
-        Page<Request> requests = requestRepository.findAllByRequestorIsNot(requestor, pageable);
-        List<Item> items = itemRepository.findAllByRequestIn(requests.toList());
-        return requests.stream().map(request -> {
-            List<ItemDto> requestItems = items.stream()
-                    .filter(item -> Objects.equals(item.getRequest().getId(), request.getId()))
-                    .map(itemMapper::toDto)
-                    .collect(Collectors.toList());
-            return requestMapper.toOutDto(request, requestItems);
-        }).collect(Collectors.toList());
+        Slice<Request> requests = requestRepository.findAllByRequestorIsNot(requestor, pageable);
+        return toOutDtos(requests.toList());
+    }
+
+    @Override
+    public CursorPage<RequestDtoExtended> getAllByCursor(Integer userId, String cursor, Integer size) {
+        User requestor = userRepository.findById(userId).orElse(null);
+        if (requestor == null) {
+            log.error("Не найден пользователь {} для получения запросов!", userId);
+            throw new NotFoundException(String.format("Не найден пользователь %d для получения запросов!", userId));
+        }
+        if (size != null && size <= 0) {
+            log.error("Значение размера страницы должны быть положительно! Текущее значение размера {}", size);
+            throw new ValidationException(String.format("Значение размера страницы должны быть положительно! Текущее значение размера %d", size));
+        }
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        Cursor after = Cursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Request> rows = after == null
+                ? requestRepository.findAllByRequestorIsNotOrderByCreatedDescIdDesc(requestor, pageable)
+                : requestRepository.findAllByRequestorIsNotBefore(requestor, after.getTimestamp(), after.getId(), pageable);
+        CursorPage<Request> page = CursorPage.of(rows, pageSize, request -> new Cursor(request.getCreated(), request.getId()));
+        return new CursorPage<>(toOutDtos(page.getItems()), page.getNextCursor());
+    }
+
+    //Вещи запрашиваются только для запросов страницы
+    private List<RequestDtoExtended> toOutDtos(List<Request> requests) {
+        if (requests.isEmpty())
+            return new ArrayList<>();
+        return toOutDtos(requests, itemRepository.findAllByRequestIn(requests));
+    }
+
+    //Раскладка вещей по идентификатору запроса за один проход вместо фильтрации всего списка для каждого запроса
+    private List<RequestDtoExtended> toOutDtos(List<Request> requests, List<Item> items) {
+        Map<Integer, List<ItemDto>> requestItems = new HashMap<>(requests.size() * 2);
+        for (Item item : items)
+            requestItems.computeIfAbsent(item.getRequest().getId(), id -> new ArrayList<>()).add(itemMapper.toDto(item));
+        return requests.stream()
+                .map(request -> requestMapper.toOutDto(request, requestItems.getOrDefault(request.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
     }
 }
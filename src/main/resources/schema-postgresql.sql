@@ -0,0 +1,11 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings ADD CONSTRAINT ex_bookings_item_period EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status IN ('WAITING', 'APPROVED'));
+
+CREATE INDEX ix_bookings_waiting_start ON bookings (start_date) WHERE status = 'WAITING';
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX ix_items_name_trgm ON items USING gin (upper(name) gin_trgm_ops) WHERE is_available = true;
+
+CREATE INDEX ix_items_description_trgm ON items USING gin (upper(description) gin_trgm_ops) WHERE is_available = true;
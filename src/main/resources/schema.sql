@@ -1,3 +1,4 @@
+DROP TABLE request_suggestions IF EXISTS CASCADE;
 DROP TABLE comments IF EXISTS CASCADE;
 DROP TABLE bookings IF EXISTS CASCADE;
 DROP TABLE items IF EXISTS CASCADE;
@@ -42,6 +43,13 @@ CREATE TABLE comments (
   author_id integer NOT NULL,
   created TIMESTAMP NOT NULL
 );
+CREATE TABLE request_suggestions (
+  id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  request_id integer NOT NULL,
+  item_id integer NOT NULL,
+  score double precision NOT NULL,
+  created TIMESTAMP NOT NULL
+);
 
 COMMENT ON TABLE users IS 'Пользователи';
 
@@ -95,6 +103,10 @@ COMMENT ON COLUMN comments.author_id IS 'ИД автора';
 
 COMMENT ON COLUMN comments.created IS 'Время создания';
 
+COMMENT ON TABLE request_suggestions IS 'Вещи, подобранные под запросы';
+
+COMMENT ON COLUMN request_suggestions.score IS 'Вес совпадения описания запроса с вещью';
+
 ALTER TABLE items ADD CONSTRAINT fk_items_users FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE RESTRICT;
 
 ALTER TABLE items ADD CONSTRAINT fk_items_requests FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE SET NULL;
@@ -108,3 +120,19 @@ ALTER TABLE requests ADD CONSTRAINT fk_requests_users FOREIGN KEY (requestor_id)
 ALTER TABLE comments ADD CONSTRAINT fk_comments_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE;
 
 ALTER TABLE comments ADD CONSTRAINT fk_comments_users FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE;
+
+CREATE INDEX ix_bookings_item_start ON bookings (item_id, start_date);
+
+CREATE INDEX ix_bookings_booker_start ON bookings (booker_id, start_date, id);
+
+CREATE INDEX ix_comments_item_created ON comments (item_id, created DESC, id DESC);
+
+CREATE INDEX ix_requests_created ON requests (created DESC, id DESC);
+
+CREATE INDEX ix_requests_requestor_created ON requests (requestor_id, created DESC, id DESC);
+
+ALTER TABLE request_suggestions ADD CONSTRAINT fk_request_suggestions_requests FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE CASCADE;
+
+ALTER TABLE request_suggestions ADD CONSTRAINT fk_request_suggestions_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE;
+
+CREATE UNIQUE INDEX ux_request_suggestions_request_item ON request_suggestions (request_id, item_id);
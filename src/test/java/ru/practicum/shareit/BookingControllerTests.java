@@ -1,20 +1,34 @@
 package ru.practicum.shareit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.service.BookingOwnerStream;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -24,7 +38,10 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -39,6 +56,8 @@ public class BookingControllerTests extends ControllerTests<BookingController> {
     private final UserMapper userMapper = new UserMapper();
     @MockBean
     BookingService bookingService;
+    @MockBean
+    BookingOwnerStream bookingOwnerStream;
 
     @Test
     void addTest() throws Exception {
@@ -64,6 +83,43 @@ public class BookingControllerTests extends ControllerTests<BookingController> {
                 .andExpect(jsonPath("$.item.id", is(bookingDto1.getItemId()), Integer.class));
     }
 
+    @Test
+    void addAllTest() throws Exception {
+        Item item1 = new Item(1, "name1", "description1", true, new User(1, "uname1", "user1@user.com"), null);
+        User user2 = new User(2, "name2", "user2@user.com");
+        Booking booking = new Booking(1, LocalDateTime.now(), LocalDateTime.now(),
+                item1, user2, BookingStatus.WAITING);
+        when(bookingService.addAll(anyList(), anyInt())).thenReturn(List.of(
+                new BookingBatchResultDto(0, bookingMapper.toOutDto(booking, itemMapper.toDto(item1), userMapper.toDto(user2)), null),
+                new BookingBatchResultDto(1, null, "error")));
+        BookingDto bookingDto1 = bookingMapper.toInDto(booking);
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 2)
+                        .content(objectMapper.writeValueAsString(List.of(bookingDto1, bookingDto1)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].booking.id", is(booking.getId()), Integer.class))
+                .andExpect(jsonPath("$[1].index", is(1), Integer.class))
+                .andExpect(jsonPath("$[1].error", is("error"), String.class));
+    }
+
+    @Test
+    void approveAllTest() throws Exception {
+        when(bookingService.approveAll(anyList(), anyBoolean(), anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        mockMvc.perform(patch("/bookings/approve")
+                        .param("approved", "true")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(objectMapper.writeValueAsString(List.of(1, 2)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[1]", is(2), Integer.class));
+    }
+
     @Test
     void approveTest() throws Exception {
         Item item1 = new Item(1, "name1", "description1", true, new User(1, "uname1", "user1@user.com"), null);
@@ -158,4 +214,120 @@ public class BookingControllerTests extends ControllerTests<BookingController> {
                 .andExpect(jsonPath("$[0].item.id", is(bookingDto1.getItemId()), Integer.class))
                 .andExpect(jsonPath("$[0].status", is("APPROVED"), String.class));
     }
+
+    @Test
+    void getPageForItemsTest() throws Exception {
+        Item item1 = new Item(1, "name1", "description1", true, new User(1, "uname1", "user1@user.com"), null);
+        User user2 = new User(2, "name2", "user2@user.com");
+        Booking booking = new Booking(1, LocalDateTime.now(), LocalDateTime.now(),
+                item1, user2, BookingStatus.WAITING);
+        when(bookingService.getPageForItems(anyInt(), anyString(), anyString(), anyInt())).thenAnswer(invocation -> new CursorPage<>(List.of(bookingMapper.toOutDto(booking,
+                itemMapper.toDto(item1), userMapper.toDto(user2))), "next"));
+        mockMvc.perform(get("/bookings/owner")
+                        .param("cursor", "")
+                        .param("size", String.valueOf(1))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id", is(booking.getId()), Integer.class))
+                .andExpect(jsonPath("$[0].status", is("WAITING"), String.class));
+    }
+
+    @Test
+    void getCountsTest() throws Exception {
+        when(bookingService.getCountsByUserId(anyInt())).thenReturn(new BookingCountsDto(5L, 1L, 2L, 2L, 1L, 0L));
+        mockMvc.perform(get("/bookings/counts")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(5)))
+                .andExpect(jsonPath("$.past", is(2)))
+                .andExpect(jsonPath("$.rejected", is(0)));
+    }
+
+    @Test
+    void exportForItemsTest() throws Exception {
+        when(bookingService.exportForItems(anyInt(), anyString()))
+                .thenReturn(out -> out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8)));
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .param("state", "ALL")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void ownerStreamTest() throws Exception {
+        UserRepository mockUserRepository = Mockito.mock(UserRepository.class);
+        when(mockUserRepository.existsById(1)).thenReturn(true);
+        BookingOwnerStream stream = new BookingOwnerStream(mockUserRepository, new SimpleMeterRegistry(), 60000, 10, 4, 1);
+        MockMvc streamMockMvc = MockMvcBuilders.standaloneSetup(new BookingController(bookingService, stream)).build();
+        MvcResult result = streamMockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        stream.onBookingChanged(new BookingChangedEvent(10, 5, 1, BookingStatus.WAITING));
+        stream.onBookingChanged(new BookingChangedEvent(11, 6, 2, BookingStatus.WAITING));
+        stream.onBookingChanged(new BookingChangedEvent(12, 7, null, BookingStatus.EXPIRED));
+        stream.onBookingChanged(new BookingChangedEvent(10, 5, 1, BookingStatus.APPROVED));
+        String body = awaitContent(result, "\"status\":\"APPROVED\"");
+        String epoch = stream.getEpoch();
+        Assertions.assertTrue(body.contains("id:" + epoch + "-1\nevent:booking\ndata:{\"bookingId\":10"));
+        Assertions.assertFalse(body.contains("\"bookingId\":11"));
+        Assertions.assertFalse(body.contains("\"bookingId\":12"));
+        MvcResult replayed = streamMockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("Last-Event-ID", epoch + "-1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        body = awaitContent(replayed, "id:" + epoch + "-3\nevent:booking");
+        Assertions.assertFalse(body.contains("id:" + epoch + "-1\n"));
+        Assertions.assertFalse(body.contains("id:" + epoch + "-2\n"));
+        Assertions.assertEquals(stream.size(), 2);
+        for (int i = 0; i < 4; i++)
+            stream.onBookingChanged(new BookingChangedEvent(11, 6, 2, BookingStatus.WAITING));
+        MvcResult reset = streamMockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("Last-Event-ID", epoch + "-1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(reset, "id:" + epoch + "-7\nevent:reset");
+        Assertions.assertThrows(ValidationException.class, () -> stream.subscribe(1, "abc"));
+        Assertions.assertThrows(ValidationException.class, () -> stream.subscribe(1, epoch + "-x"));
+        Assertions.assertThrows(NotFoundException.class, () -> stream.subscribe(2, null));
+        stream.shutdown();
+    }
+
+    @Test
+    void ownerStreamRestartTest() throws Exception {
+        UserRepository mockUserRepository = Mockito.mock(UserRepository.class);
+        when(mockUserRepository.existsById(1)).thenReturn(true);
+        BookingOwnerStream previous = new BookingOwnerStream(mockUserRepository, new SimpleMeterRegistry(), 60000, 10, 4, 1);
+        BookingOwnerStream stream = new BookingOwnerStream(mockUserRepository, new SimpleMeterRegistry(), 60000, 10, 4, 1);
+        Assertions.assertNotEquals(previous.getEpoch(), stream.getEpoch());
+        for (int i = 0; i < 3; i++)
+            stream.onBookingChanged(new BookingChangedEvent(10, 5, 1, BookingStatus.WAITING));
+        MockMvc streamMockMvc = MockMvcBuilders.standaloneSetup(new BookingController(bookingService, stream)).build();
+        //Номер 1 из прошлого запуска меньше текущего, но события с этим номером в буфере другие
+        MvcResult result = streamMockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("Last-Event-ID", previous.getEpoch() + "-1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = awaitContent(result, "id:" + stream.getEpoch() + "-3\nevent:reset");
+        Assertions.assertFalse(body.contains("event:booking"));
+        previous.shutdown();
+        stream.shutdown();
+    }
 }
@@ -3,12 +3,16 @@ package ru.practicum.shareit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
 
 @ExtendWith(MockitoExtension.class)
 @AutoConfigureMockMvc
@@ -24,4 +28,15 @@ public abstract class ControllerTests<T> {
     static void setDate() {
         objectMapper.registerModule(new JavaTimeModule());
     }
+
+    //События SSE отправляются пулом SseHub, поэтому ответ дописывается асинхронно
+    protected static String awaitContent(MvcResult result, String expected) throws Exception {
+        String body = "";
+        for (int i = 0; i < 100 && !body.contains(expected); i++) {
+            Thread.sleep(50);
+            body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        Assertions.assertTrue(body.contains(expected), body);
+        return body;
+    }
 }
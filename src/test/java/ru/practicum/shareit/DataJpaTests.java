@@ -6,12 +6,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.AdjacentBooking;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.dto.BookingStatusDto;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.Request;
@@ -36,9 +42,9 @@ public class DataJpaTests {
     RequestRepository requestRepository;
     private final LocalDateTime pastDate1 = LocalDateTime.of(2022, 1, 1, 1, 1, 1);
     private final LocalDateTime pastDate2 = LocalDateTime.of(2023, 1, 1, 1, 1, 1);
-    private final LocalDateTime futureDate1 = LocalDateTime.of(2024, 1, 1, 1, 1, 1);
-    private final LocalDateTime futureDate2 = LocalDateTime.of(2025, 1, 1, 1, 1, 1);
-    private final LocalDateTime futureDate3 = LocalDateTime.of(2026, 1, 1, 1, 1, 1);
+    private final LocalDateTime futureDate1 = LocalDateTime.of(2124, 1, 1, 1, 1, 1);
+    private final LocalDateTime futureDate2 = LocalDateTime.of(2125, 1, 1, 1, 1, 1);
+    private final LocalDateTime futureDate3 = LocalDateTime.of(2126, 1, 1, 1, 1, 1);
 
     @Test
     void commentGetAllByOwnerTest() {
@@ -68,9 +74,25 @@ public class DataJpaTests {
         bookingRepository.saveAndFlush(booking4);
         commentRepository.saveAndFlush(comment1);
 
-        List<Comment> commentList = commentRepository.getAllByOwner(user1);
+        List<CommentDto> commentList = commentRepository.findLatestDtoByItemIds(List.of(item1.getId(), item2.getId()), 10);
         Assertions.assertEquals(commentList.size(), 1);
         Assertions.assertEquals(commentList.get(0).getText(), "text1");
+        commentRepository.saveAndFlush(new Comment(2, "text2", item1, user3, pastDate2));
+        commentRepository.saveAndFlush(new Comment(3, "text3", item1, user2, pastDate1));
+        commentRepository.saveAndFlush(new Comment(4, "text4", item2, user3, pastDate1));
+        commentList = commentRepository.findLatestDtoByItemIds(List.of(item1.getId(), item2.getId()), 2);
+        Assertions.assertEquals(commentList, List.of(new CommentDto(2, "text2", 1, 3, "uname3", pastDate2),
+                new CommentDto(1, "text1", 1, 2, "uname2", pastDate2),
+                new CommentDto(4, "text4", 2, 3, "uname3", pastDate1)));
+        Assertions.assertTrue(commentRepository.findLatestDtoByItemIds(List.of(), 2).isEmpty());
+        List<CommentDto> commentDtos = commentRepository.findAllDtoByItemId(item1.getId(), PageRequest.of(0, 2));
+        Assertions.assertEquals(commentDtos, List.of(new CommentDto(2, "text2", 1, 3, "uname3", pastDate2),
+                new CommentDto(1, "text1", 1, 2, "uname2", pastDate2)));
+        commentDtos = commentRepository.findAllDtoByItemIdBefore(item1.getId(), pastDate2, 2, PageRequest.of(0, 10));
+        Assertions.assertEquals(commentDtos.size(), 2);
+        Assertions.assertEquals(commentDtos.get(0).getId(), 1);
+        Assertions.assertEquals(commentDtos.get(1).getId(), 3);
+        Assertions.assertTrue(commentRepository.findAllDtoByItemId(item3.getId(), PageRequest.of(0, 10)).isEmpty());
         List<Item> items = itemRepository.findAllByRequestor(user3);
         Assertions.assertEquals(items.size(), 2);
         Assertions.assertEquals(items.get(0).getId(), 2);
@@ -85,25 +107,71 @@ public class DataJpaTests {
         List<Item> items4 = itemRepository.searchByText(false, "aMe3", Pageable.unpaged()).toList();
         Assertions.assertEquals(items4.size(), 1);
         Assertions.assertEquals(items4.get(0).getId(), 3);
-        Pageable bookingPageable = PageRequest.of(0, Integer.MAX_VALUE, Sort.by("start").descending());
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerByStatus(user2, BookingStatus.APPROVED, bookingPageable).toList();
-        Assertions.assertEquals(bookings.size(), 2);
-        Assertions.assertEquals(bookings.get(0).getId(), 3);
-        Assertions.assertEquals(bookings.get(1).getId(), 1);
-        List<Booking> bookings2 = bookingRepository.findAllByItemOwnerFuture(user2, LocalDateTime.now(), bookingPageable).toList();
+        List<Item> items5 = itemRepository.searchAvailableByTrigram("Ion", PageRequest.of(1, 1)).toList();
+        Assertions.assertEquals(items5.size(), 1);
+        Assertions.assertEquals(items5.get(0).getId(), 2);
+        Assertions.assertEquals(itemRepository.searchAvailableByTrigram("aMe", Pageable.unpaged()).getTotalElements(), 2);
+        Assertions.assertTrue(itemRepository.searchAvailableByTrigram("aMe3", Pageable.unpaged()).isEmpty());
+        Assertions.assertEquals(itemRepository.findAvailableNamesByPrefix("name", PageRequest.of(0, 10)), List.of("name1", "name2"));
+        Assertions.assertEquals(itemRepository.findAvailableNamesByPrefix("name", PageRequest.of(0, 1)), List.of("name1"));
+        List<ItemDto> itemDtos = itemRepository.findAllDtoByIdIn(List.of(item1.getId(), item3.getId()));
+        Assertions.assertEquals(itemDtos.size(), 2);
+        Assertions.assertTrue(itemDtos.contains(new ItemDto(3, "name3", "description3", false, 2, 1)));
+        List<BookingRow> bookings = bookingRepository.findRowsByFilter(ownerFilter(user2, BookingStatusDto.WAITING), Pageable.unpaged());
+        Assertions.assertEquals(bookings.size(), 1);
+        Assertions.assertEquals(bookings.get(0).getId(), 4);
+        List<BookingRow> bookings2 = bookingRepository.findRowsByFilter(ownerFilter(user2, BookingStatusDto.FUTURE), Pageable.unpaged());
         Assertions.assertEquals(bookings2.size(), 2);
         Assertions.assertEquals(bookings2.get(0).getId(), 4);
         Assertions.assertEquals(bookings2.get(1).getId(), 3);
-        List<Booking> bookings3 = bookingRepository.findAllByItemOwnerPast(user2, LocalDateTime.now(), bookingPageable).toList();
+        List<BookingRow> bookings3 = bookingRepository.findRowsByFilter(ownerFilter(user2, BookingStatusDto.PAST), Pageable.unpaged());
         Assertions.assertEquals(bookings3.size(), 1);
         Assertions.assertEquals(bookings3.get(0).getId(), 1);
-        List<Booking> bookings4 = bookingRepository.findAllByItemOwnerCurrent(user1, LocalDateTime.now(), bookingPageable).toList();
+        List<BookingRow> bookings4 = bookingRepository.findRowsByFilter(ownerFilter(user1, BookingStatusDto.CURRENT), Pageable.unpaged());
         Assertions.assertEquals(bookings4.size(), 1);
         Assertions.assertEquals(bookings4.get(0).getId(), 2);
-        List<Booking> bookings5 = bookingRepository.findAllByItemOwner(user2, bookingPageable).toList();
-        Assertions.assertEquals(bookings5.size(), 3);
+        List<BookingRow> bookings5 = bookingRepository.findRowsByFilter(ownerFilter(user2, BookingStatusDto.ALL), PageRequest.of(0, 2));
+        Assertions.assertEquals(bookings5.size(), 2);
         Assertions.assertEquals(bookings5.get(0).getId(), 4);
         Assertions.assertEquals(bookings5.get(1).getId(), 3);
-        Assertions.assertEquals(bookings5.get(2).getId(), 1);
+        List<BookingRow> bookings6 = bookingRepository.findRowsByFilter(BookingFilter.builder()
+                .itemId(item2.getId())
+                .now(LocalDateTime.now())
+                .rangeStart(pastDate2.minusDays(1))
+                .rangeEnd(futureDate1.plusDays(1))
+                .build(), Pageable.unpaged());
+        Assertions.assertEquals(bookings6.size(), 2);
+        Assertions.assertEquals(bookings6.get(0).getId(), 3);
+        Assertions.assertEquals(bookings6.get(1).getId(), 1);
+        LocalDateTime now = LocalDateTime.now();
+        List<AdjacentBooking> adjacent = bookingRepository.findAdjacentApproved(List.of(item1.getId(), item2.getId(), item3.getId()), now);
+        Assertions.assertEquals(adjacent.size(), 3);
+        Assertions.assertTrue(adjacent.contains(new AdjacentBooking(AdjacentBooking.Kind.LAST, 2, 1, 2, pastDate1, futureDate2)));
+        Assertions.assertTrue(adjacent.contains(new AdjacentBooking(AdjacentBooking.Kind.LAST, 1, 2, 2, pastDate1, pastDate2)));
+        Assertions.assertTrue(adjacent.contains(new AdjacentBooking(AdjacentBooking.Kind.NEXT, 3, 2, 3, futureDate1, futureDate3)));
+        Assertions.assertTrue(bookingRepository.findAdjacentApproved(List.of(), now).isEmpty());
+        Assertions.assertEquals(bookingRepository.countByItemOwner(user2.getId(), now), new BookingCountsDto(3L, 0L, 1L, 2L, 1L, 0L));
+        Assertions.assertEquals(bookingRepository.countByBooker(user2.getId(), now), new BookingCountsDto(2L, 1L, 1L, 0L, 0L, 0L));
+        Assertions.assertEquals(bookingRepository.countByBooker(user1.getId(), now), new BookingCountsDto(0L, null, null, null, null, null));
+        itemRepository.saveAndFlush(new Item(4, "NAME1", "description4", true, user1, null));
+        itemRepository.saveAndFlush(new Item(5, "Ёлка_1", "description5", true, user1, null));
+        itemRepository.saveAndFlush(new Item(6, "елкаx", "description6", true, user1, null));
+        Assertions.assertEquals(itemRepository.findAvailableNamesByPrefix("name", PageRequest.of(0, 10)), List.of("name1", "name2"));
+        Assertions.assertEquals(itemRepository.findAvailableNamesByPrefix("елка\\_", PageRequest.of(0, 10)), List.of("Ёлка_1"));
+        Assertions.assertEquals(itemRepository.findAvailableNamesByPrefix("елка", PageRequest.of(0, 10)), List.of("Ёлка_1", "елкаx"));
+        Assertions.assertTrue(itemRepository.findAvailableNamesByPrefix("\\%", PageRequest.of(0, 10)).isEmpty());
+        Assertions.assertEquals(bookingRepository.updateWaitingStatus(List.of(3, 4), user1.getId(), BookingStatus.APPROVED), 0);
+        Assertions.assertEquals(bookingRepository.expireWaiting(List.of(4), now), 0);
+        Assertions.assertEquals(bookingRepository.updateWaitingStatus(List.of(3, 4), user2.getId(), BookingStatus.APPROVED), 1);
+        Assertions.assertEquals(bookingRepository.findById(4).orElseThrow().getStatus(), BookingStatus.APPROVED);
+    }
+
+    private BookingFilter ownerFilter(User owner, BookingStatusDto state) {
+        return BookingFilter.builder()
+                .role(BookingFilter.Role.OWNER)
+                .user(owner)
+                .state(state)
+                .now(LocalDateTime.now())
+                .build();
     }
 }
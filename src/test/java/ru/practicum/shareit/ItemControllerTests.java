@@ -10,10 +10,14 @@ import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.comment.service.CommentService;
 import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemAvailabilityService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.User;
 
 import java.nio.charset.StandardCharsets;
@@ -24,6 +28,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +45,8 @@ public class ItemControllerTests extends ControllerTests<ItemController> {
     ItemService itemService;
     @MockBean
     CommentService commentService;
+    @MockBean
+    ItemAvailabilityService itemAvailabilityService;
 
     @Test
     void addTest() throws Exception {
@@ -125,7 +132,7 @@ public class ItemControllerTests extends ControllerTests<ItemController> {
 
     @Test
     void getAvailableByTextTest() throws Exception {
-        when(itemService.getAvailableByText(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> List.of(
+        when(itemService.getAvailableByText(anyString(), anyInt(), anyInt(), eq("relevance"), eq(true))).thenAnswer(invocation -> List.of(
                 itemMapper.toDtoExtended(new Item(1, "name1", "description1", true, new User(1, "uname1", "user1@user.com"), null), null)
         ));
         ItemDto itemDto = itemMapper.toDto(new Item(1, "name1", "description1", true, new User(1, "uname1", "user1@user.com"), null));
@@ -133,6 +140,8 @@ public class ItemControllerTests extends ControllerTests<ItemController> {
                         .param("text", "desc")
                         .param("from", String.valueOf(0))
                         .param("size", String.valueOf(10))
+                        .param("sort", "relevance")
+                        .param("fuzzy", "true")
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -168,4 +177,47 @@ public class ItemControllerTests extends ControllerTests<ItemController> {
                 .andExpect(jsonPath("$.itemId", is(commentDto.getItemId()), Integer.class))
                 .andExpect(jsonPath("$.authorId", is(commentDto.getAuthorId()), Integer.class));
     }
+
+    @Test
+    void getAvailabilityTest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2124, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemAvailabilityService.get(anyInt(), any(LocalDateTime.class), any(LocalDateTime.class), anyBoolean()))
+                .thenReturn(new ItemAvailabilityDto(1, from, to, List.of(new IntervalDto(from, from.plusHours(1))), List.of(new IntervalDto(from.plusHours(1), to))));
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("includeWaiting", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1), Integer.class))
+                .andExpect(jsonPath("$.busy.length()", is(1)))
+                .andExpect(jsonPath("$.free[0].end", is("2124-01-02T00:00:00"), String.class));
+    }
+
+    @Test
+    void suggestNamesTest() throws Exception {
+        when(itemService.suggestNames("дре", 5)).thenReturn(List.of("Дрель", "Дрель-шуруповерт"));
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "дре")
+                        .param("size", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[1]", is("Дрель-шуруповерт"), String.class));
+    }
+
+    @Test
+    void getCommentsTest() throws Exception {
+        CommentDto commentDto = new CommentDto(1, "text1", 1, 2, "uname2", LocalDateTime.of(2023, 1, 1, 1, 1));
+        when(commentService.getPageByItemId(1, "cursor", 1)).thenReturn(new CursorPage<>(List.of(commentDto), "next"));
+        mockMvc.perform(get("/items/{itemId}/comments", 1)
+                        .param("cursor", "cursor")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id", is(commentDto.getId()), Integer.class))
+                .andExpect(jsonPath("$[0].authorName", is(commentDto.getAuthorName()), String.class));
+    }
 }
@@ -1,16 +1,30 @@
 package ru.practicum.shareit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemCreatedEvent;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.RequestController;
 import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.dto.RequestDtoExtended;
 import ru.practicum.shareit.request.dto.RequestMapper;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.service.RequestItemStream;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -23,7 +37,9 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = RequestController.class)
@@ -36,6 +52,8 @@ public class RequestControllerTests extends ControllerTests<RequestController> {
     private final RequestMapper requestMapper = new RequestMapper();
     @MockBean
     RequestService requestService;
+    @MockBean
+    RequestItemStream requestItemStream;
 
     @Test
     void addTest() throws Exception {
@@ -110,4 +128,72 @@ public class RequestControllerTests extends ControllerTests<RequestController> {
                 .andExpect(jsonPath("$[0].id", is(requestDto1.getId()), Integer.class))
                 .andExpect(jsonPath("$[0].description", is(requestDto1.getDescription()), String.class));
     }
+
+    @Test
+    void getAllByCursorTest() throws Exception {
+        RequestDtoExtended requestDto = requestMapper.toOutDto(new Request(1, "description1", new User(2, "name2", "user2@user.com"), LocalDateTime.now()), new ArrayList<>());
+        when(requestService.getAllByCursor(1, null, 1)).thenReturn(new CursorPage<>(List.of(requestDto), "next"));
+        mockMvc.perform(get("/requests/all")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id", is(requestDto.getId()), Integer.class))
+                .andExpect(jsonPath("$[0].description", is(requestDto.getDescription()), String.class));
+    }
+
+    @Test
+    void getSuggestionsTest() throws Exception {
+        RequestSuggestionDto suggestion = new RequestSuggestionDto(3, "Дрель", "Ударная дрель", 2, 1.5);
+        when(requestService.getSuggestions(1, 1)).thenReturn(List.of(suggestion));
+        mockMvc.perform(get("/requests/{requestId}/suggestions", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].itemId", is(suggestion.getItemId()), Integer.class))
+                .andExpect(jsonPath("$[0].name", is(suggestion.getName()), String.class))
+                .andExpect(jsonPath("$[0].score", is(suggestion.getScore()), Double.class));
+    }
+
+    @Test
+    void getPageByUserIdTest() throws Exception {
+        RequestDtoExtended requestDto = requestMapper.toOutDto(new Request(1, "description1", new User(1, "name1", "user1@user.com"), LocalDateTime.now()), new ArrayList<>());
+        when(requestService.getPageByUserId(1, "cursor", 1)).thenReturn(new CursorPage<>(List.of(requestDto), "next"));
+        mockMvc.perform(get("/requests")
+                        .param("cursor", "cursor")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id", is(requestDto.getId()), Integer.class))
+                .andExpect(jsonPath("$[0].description", is(requestDto.getDescription()), String.class));
+    }
+
+    @Test
+    void streamTest() throws Exception {
+        UserRepository mockUserRepository = Mockito.mock(UserRepository.class);
+        when(mockUserRepository.existsById(1)).thenReturn(true);
+        RequestItemStream stream = new RequestItemStream(mockUserRepository, new SimpleMeterRegistry(), 60000, 10, 1);
+        MockMvc streamMockMvc = MockMvcBuilders.standaloneSetup(new RequestController(requestService, stream)).build();
+        MvcResult result = streamMockMvc.perform(get("/requests/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Assertions.assertEquals(stream.size(), 1);
+        stream.onItemCreated(new ItemCreatedEvent(new ItemDto(5, "Дрель", "Ударная дрель", true, 2, 3), 1));
+        stream.onItemCreated(new ItemCreatedEvent(new ItemDto(6, "Пила", "Дисковая пила", true, 2, 4), 2));
+        stream.onItemCreated(new ItemCreatedEvent(new ItemDto(7, "Молоток", "Молоток", true, 2, null), null));
+        stream.heartbeat();
+        //Пульс отправлен после событий о вещах из той же очереди подписчика
+        String body = awaitContent(result, ":heartbeat");
+        Assertions.assertTrue(body.contains("id:5\nevent:item\n"));
+        Assertions.assertTrue(body.contains("Ударная дрель"));
+        Assertions.assertFalse(body.contains("Пила"));
+        Assertions.assertFalse(body.contains("Молоток"));
+        Assertions.assertThrows(NotFoundException.class, () -> stream.subscribe(2));
+        stream.shutdown();
+    }
 }
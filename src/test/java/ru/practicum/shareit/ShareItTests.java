@@ -1,21 +1,33 @@
 package ru.practicum.shareit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.AdjacentBooking;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoExtended;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingExpiryJob;
+import ru.practicum.shareit.booking.service.BookingExporter;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.comment.Comment;
@@ -28,18 +40,33 @@ import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UnsupportedException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoExtended;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.event.ItemCreatedEvent;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemMatch;
+import ru.practicum.shareit.item.search.ItemDocumentStore;
+import ru.practicum.shareit.item.search.ItemFuzzyIndex;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.LikeItemSearchStrategy;
+import ru.practicum.shareit.item.service.ItemAvailabilityService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.dto.RequestDtoExtended;
 import ru.practicum.shareit.request.dto.RequestMapper;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.event.RequestCreatedEvent;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.request.service.RequestServiceImpl;
 import ru.practicum.shareit.user.User;
@@ -51,7 +78,11 @@ import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -73,6 +104,13 @@ class ShareItTests {
     private final BookingMapper bookingMapper;
     private final RequestMapper requestMapper;
     private final EntityManager entityManager;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ItemAvailabilityService itemAvailabilityService;
+    private final RequestMatcher requestMatcher;
+    private final ItemRepository itemRepository;
 
     @Test
     void contextLoads() {
@@ -170,18 +208,28 @@ class ShareItTests {
         RequestRepository mockRequestRepository = Mockito.mock(RequestRepository.class);
         BookingRepository mockBookingRepository = Mockito.mock(BookingRepository.class);
         CommentRepository mockCommentRepository = Mockito.mock(CommentRepository.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ApplicationEventPublisher mockEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        ItemDocumentStore itemDocumentStore = new ItemDocumentStore(mockItemRepository, new SimpleMeterRegistry(), false);
         ItemService itemService = new ItemServiceImpl(itemMapper,
                 bookingMapper,
-                commentMapper,
                 mockItemRepository,
                 mockUserRepository,
                 mockRequestRepository,
                 mockBookingRepository,
-                mockCommentRepository);
+                mockCommentRepository,
+                itemDocumentStore,
+                new ItemSearchIndex(itemDocumentStore, new SimpleMeterRegistry()),
+                new ItemFuzzyIndex(itemDocumentStore, new SimpleMeterRegistry()),
+                new ItemNameSuggester(itemDocumentStore, new SimpleMeterRegistry()),
+                new LikeItemSearchStrategy(mockItemRepository),
+                meterRegistry,
+                mockEventPublisher);
         Mockito.when(mockItemRepository.saveAndFlush(Mockito.any(Item.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0, Item.class));
         User user1 = new User(1, "name1", "user1@user.com");
-        Request request1 = new Request(1, "", null, LocalDateTime.now());
+        User user2 = new User(2, "name2", "user2@user.com");
+        Request request1 = new Request(1, "", user2, LocalDateTime.now());
         Mockito.when(mockUserRepository.findById(Mockito.anyInt()))
                 .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, Integer.class), 1)
                         ? Optional.of(user1)
@@ -196,6 +244,7 @@ class ShareItTests {
                         ? Optional.of(item1)
                         : Optional.empty());
         ItemDto itemDto1 = itemService.add(itemMapper.toDto(item1), user1.getId());
+        Mockito.verify(mockEventPublisher).publishEvent(new ItemCreatedEvent(itemDto1, user2.getId()));
         Assertions.assertThrows(NotFoundException.class, () -> itemService.add(itemMapper.toDto(item1), 2));
         Assertions.assertTrue(Objects.equals(itemDto1.getId(), item1.getId())
                 && Objects.equals(itemDto1.getName(), item1.getName())
@@ -213,12 +262,8 @@ class ShareItTests {
                 && Objects.equals(itemDto1.getOwnerId(), item1.getOwner().getId()));
         Assertions.assertThrows(NotFoundException.class, () -> itemService.update(itemMapper.toDto(item1), 1, 2));
         Assertions.assertThrows(ForbiddenException.class, () -> itemService.update(itemMapper.toDto(item1), 2, 1));
-        Mockito.when(mockCommentRepository.getAllByItemOrderByCreatedDesc(Mockito.any(Item.class)))
+        Mockito.when(mockCommentRepository.findAllDtoByItemId(Mockito.anyInt(), Mockito.any(Pageable.class)))
                 .thenReturn(new ArrayList<>());
-        Mockito.when(mockBookingRepository.findFirstByItemAndStatusAndStartIsAfterOrderByStart(Mockito.any(Item.class), Mockito.any(BookingStatus.class), Mockito.any(LocalDateTime.class)))
-                .thenReturn(null);
-        Mockito.when(mockBookingRepository.findFirstByItemAndStatusAndStartIsBeforeOrderByEndDesc(Mockito.any(Item.class), Mockito.any(BookingStatus.class), Mockito.any(LocalDateTime.class)))
-                .thenReturn(null);
         ItemDtoExtended itemDto2 = itemService.get(1, 1);
         Assertions.assertTrue(Objects.equals(itemDto2.getId(), item1.getId())
                 && Objects.equals(itemDto2.getName(), item1.getName())
@@ -226,15 +271,21 @@ class ShareItTests {
                 && Objects.equals(itemDto2.getAvailable(), item1.getAvailable())
                 && Objects.equals(itemDto2.getRequestId(), item1.getRequest().getId())
                 && Objects.equals(itemDto2.getOwnerId(), item1.getOwner().getId()));
+        Assertions.assertEquals(meterRegistry.get("shareit.items.get").tag("view", "owner").timer().count(), 1);
         Assertions.assertThrows(NotFoundException.class, () -> itemService.get(2, 1));
+        Assertions.assertEquals(meterRegistry.get("shareit.items.get").tag("view", "missing").timer().count(), 1);
         Mockito.when(mockItemRepository.findAllByOwner(Mockito.any(User.class), Mockito.any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(item1)));
-        Mockito.when(mockBookingRepository.findAllByItemInOrderByStartDesc(Mockito.any(ArrayList.class)))
-                .thenReturn(new ArrayList<>());
-        Mockito.when(mockCommentRepository.getAllByOwner(Mockito.any(User.class)))
-                .thenReturn(new ArrayList<>());
+        Mockito.when(mockBookingRepository.findAdjacentApproved(Mockito.anyList(), Mockito.any(LocalDateTime.class)))
+                .thenReturn(List.of(new AdjacentBooking(AdjacentBooking.Kind.NEXT, 5, item1.getId(), 2, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2))));
+        Mockito.when(mockCommentRepository.findLatestDtoByItemIds(List.of(item1.getId()), 10))
+                .thenReturn(List.of(new CommentDto(7, "text7", item1.getId(), 2, "uname2", LocalDateTime.now())));
         List<ItemDtoExtended> list1 = itemService.getAllByUserExtended(1, 1, 1);
         itemDto2 = list1.get(0);
+        Assertions.assertEquals(itemDto2.getComments().size(), 1);
+        Assertions.assertEquals(itemDto2.getComments().get(0).getId(), 7);
+        Assertions.assertEquals(itemDto2.getNextBooking().getId(), 5);
+        Assertions.assertNull(itemDto2.getLastBooking());
         Assertions.assertTrue(Objects.equals(itemDto2.getId(), item1.getId())
                 && Objects.equals(itemDto2.getName(), item1.getName())
                 && Objects.equals(itemDto2.getDescription(), item1.getDescription())
@@ -248,7 +299,7 @@ class ShareItTests {
                 .thenAnswer(invocation -> item1.getDescription().toLowerCase().contains(invocation.getArgument(1, String.class).toLowerCase())
                         ? new PageImpl<>(List.of(item1))
                         : Page.empty());
-        List<ItemDto> list2 = itemService.getAvailableByText("desc", 1, 1);
+        List<ItemDto> list2 = itemService.getAvailableByText("desc", 1, 1, "id", false);
         itemDto1 = list2.get(0);
         Assertions.assertTrue(Objects.equals(itemDto1.getId(), item1.getId())
                 && Objects.equals(itemDto1.getName(), item1.getName())
@@ -256,10 +307,10 @@ class ShareItTests {
                 && Objects.equals(itemDto1.getAvailable(), item1.getAvailable())
                 && Objects.equals(itemDto1.getRequestId(), item1.getRequest().getId())
                 && Objects.equals(itemDto1.getOwnerId(), item1.getOwner().getId()));
-        list2 = itemService.getAvailableByText("desci", 1, 1);
+        list2 = itemService.getAvailableByText("desci", 1, 1, "id", false);
         Assertions.assertTrue(list2.isEmpty());
-        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("desc", -1, 1));
-        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("desc", 1, 0));
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("desc", -1, 1, "id", false));
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("desc", 1, 0, "id", false));
     }
 
     @Test
@@ -269,7 +320,9 @@ class ShareItTests {
         RequestRepository mockRequestRepository = Mockito.mock(RequestRepository.class);
         UserRepository mockUserRepository = Mockito.mock(UserRepository.class);
         ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
-        RequestService requestService = new RequestServiceImpl(mockRequestRepository, mockUserRepository, mockItemRepository, requestMapper, itemMapper);
+        ApplicationEventPublisher mockEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        RequestService requestService = new RequestServiceImpl(mockRequestRepository, mockUserRepository, mockItemRepository,
+                requestMapper, itemMapper, Mockito.mock(RequestSuggestionRepository.class), mockEventPublisher);
         User user1 = new User(1, "name1", "user1@user.com");
         User user2 = new User(2, "name2", "user2@user.com");
         Request request1 = new Request(1, "", user1, null);
@@ -287,6 +340,7 @@ class ShareItTests {
         Mockito.when(mockRequestRepository.saveAndFlush(Mockito.any(Request.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0, Request.class));
         RequestDto requestDto1 = requestService.add(requestMapper.toInDto(request1), 1);
+        Mockito.verify(mockEventPublisher).publishEvent(new RequestCreatedEvent(requestDto1.getId(), 1, requestDto1.getDescription()));
         Assertions.assertTrue(Objects.equals(requestDto1.getId(), request1.getId())
                 && Objects.equals(requestDto1.getDescription(), request1.getDescription())
                 && Objects.equals(requestDto1.getRequestorId(), request1.getRequestor().getId()));
@@ -370,6 +424,28 @@ class ShareItTests {
                 && Objects.equals(commentDto1.getItemId(), comment1.getItem().getId()));
         Assertions.assertThrows(NotFoundException.class, () -> commentService.add(commentMapper.toDto(comment1), 2, 1));
         Assertions.assertThrows(NotFoundException.class, () -> commentService.add(commentMapper.toDto(comment1), 1, 2));
+        LocalDateTime created = LocalDateTime.of(2023, 1, 1, 1, 1, 1);
+        List<CommentDto> comments = List.of(new CommentDto(3, "text3", 1, 1, "name1", created),
+                new CommentDto(2, "text2", 1, 1, "name1", created),
+                new CommentDto(1, "text1", 1, 1, "name1", created.minusDays(1)));
+        Mockito.when(mockItemRepository.existsById(Mockito.anyInt()))
+                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, Integer.class), item1.getId()));
+        Mockito.when(mockCommentRepository.findAllDtoByItemId(Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> comments.subList(0, invocation.getArgument(1, Pageable.class).getPageSize()));
+        Mockito.when(mockCommentRepository.findAllDtoByItemIdBefore(Mockito.anyInt(), Mockito.any(LocalDateTime.class), Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> comments.subList(2, 3));
+        CursorPage<CommentDto> page = commentService.getPageByItemId(1, null, 2);
+        Assertions.assertEquals(page.getItems().size(), 2);
+        Assertions.assertEquals(page.getItems().get(1).getId(), 2);
+        Assertions.assertNotNull(page.getNextCursor());
+        page = commentService.getPageByItemId(1, page.getNextCursor(), 2);
+        Assertions.assertEquals(page.getItems().size(), 1);
+        Assertions.assertEquals(page.getItems().get(0).getId(), 1);
+        Assertions.assertNull(page.getNextCursor());
+        Mockito.verify(mockCommentRepository).findAllDtoByItemIdBefore(Mockito.eq(1), Mockito.eq(created), Mockito.eq(2), Mockito.any(Pageable.class));
+        Assertions.assertThrows(NotFoundException.class, () -> commentService.getPageByItemId(2, null, 2));
+        Assertions.assertThrows(ValidationException.class, () -> commentService.getPageByItemId(1, null, 0));
+        Assertions.assertThrows(ValidationException.class, () -> commentService.getPageByItemId(1, "cursor", 2));
     }
 
     @Test
@@ -380,7 +456,8 @@ class ShareItTests {
         UserRepository mockUserRepository = Mockito.mock(UserRepository.class);
         ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
         BookingRepository mockBookingRepository = Mockito.mock(BookingRepository.class);
-        BookingService bookingService = new BookingServiceImpl(mockBookingRepository, mockUserRepository, mockItemRepository, bookingMapper, itemMapper, userMapper);
+        BookingService bookingService = new BookingServiceImpl(mockBookingRepository, mockUserRepository, mockItemRepository, bookingMapper, itemMapper, userMapper,
+                new BookingIntervalIndex(mockBookingRepository), Mockito.mock(BookingExporter.class), Mockito.mock(ApplicationEventPublisher.class));
         Mockito.when(mockBookingRepository.saveAndFlush(Mockito.any(Booking.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0, Booking.class));
         User user1 = new User(1, "name1", "user1@user.com");
@@ -417,59 +494,16 @@ class ShareItTests {
                 .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user2.getId())
                         ? new PageImpl<>(List.of(booking1))
                         : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByBookerAndStartIsBeforeAndEndIsAfter(Mockito.any(User.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user2.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByBookerAndEndIsBefore(Mockito.any(User.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user2.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByBookerAndStartIsAfter(Mockito.any(User.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user2.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByBookerAndStatus(Mockito.any(User.class),
-                        Mockito.any(BookingStatus.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user2.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByItemOwner(Mockito.any(User.class), Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user1.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByItemOwnerCurrent(Mockito.any(User.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user1.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByItemOwnerPast(Mockito.any(User.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user1.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByItemOwnerFuture(Mockito.any(User.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user1.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
-        Mockito.when(mockBookingRepository.findAllByItemOwnerByStatus(Mockito.any(User.class),
-                        Mockito.any(BookingStatus.class),
-                        Mockito.any(Pageable.class)))
-                .thenAnswer(invocation -> Objects.equals(invocation.getArgument(0, User.class).getId(), user1.getId())
-                        ? new PageImpl<>(List.of(booking1))
-                        : Page.empty());
+        Mockito.when(mockBookingRepository.findRowsByFilter(Mockito.any(BookingFilter.class), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    BookingFilter filter = invocation.getArgument(0, BookingFilter.class);
+                    User user = filter.getRole() == BookingFilter.Role.BOOKER ? user2 : user1;
+                    return Objects.equals(filter.getUser().getId(), user.getId())
+                            ? List.of(new BookingRow(booking1.getId(), booking1.getStart(), booking1.getEnd(), booking1.getStatus(),
+                            item1.getId(), item1.getName(), item1.getDescription(), item1.getAvailable(), user1.getId(), null,
+                            user2.getId(), user2.getName(), user2.getEmail()))
+                            : List.of();
+                });
         BookingDtoExtended bookingDtoExtended1 = bookingService.add(bookingMapper.toInDto(booking1), 2);
         Assertions.assertTrue(Objects.equals(bookingDtoExtended1.getId(), booking1.getId())
                 && Objects.equals(bookingDtoExtended1.getStatus(), booking1.getStatus())
@@ -720,6 +754,32 @@ class ShareItTests {
         List<RequestDtoExtended> gotRequests2 = requestService.getAll(users.get(1).getId(), 0, 10);
         Assertions.assertEquals(gotRequests2.size(), 1);
         Assertions.assertEquals(gotRequests2.get(0).getItems().get(0).getName(), "name2");
+        requestService.add(requestMapper.toInDto(new Request(null, "description3", users.get(1), null)), users.get(1).getId());
+        CursorPage<RequestDtoExtended> page1 = requestService.getAllByCursor(users.get(0).getId(), null, 1);
+        Assertions.assertEquals(page1.getItems().size(), 1);
+        Assertions.assertEquals(page1.getItems().get(0).getDescription(), "description3");
+        Assertions.assertTrue(page1.getItems().get(0).getItems().isEmpty());
+        Assertions.assertNotNull(page1.getNextCursor());
+        CursorPage<RequestDtoExtended> page2 = requestService.getAllByCursor(users.get(0).getId(), page1.getNextCursor(), 1);
+        Assertions.assertEquals(page2.getItems().size(), 1);
+        Assertions.assertEquals(page2.getItems().get(0).getItems().get(0).getName(), "name1");
+        Assertions.assertNull(page2.getNextCursor());
+        Assertions.assertEquals(requestService.getAllByCursor(users.get(1).getId(), null, null).getItems().size(), 1);
+        Assertions.assertThrows(ValidationException.class, () -> requestService.getAllByCursor(users.get(0).getId(), null, 0));
+        Assertions.assertThrows(ValidationException.class, () -> requestService.getAllByCursor(users.get(0).getId(), "bad", 1));
+        Assertions.assertThrows(NotFoundException.class, () -> requestService.getAllByCursor(1000, null, 1));
+        CursorPage<RequestDtoExtended> ownPage1 = requestService.getPageByUserId(users.get(1).getId(), null, 1);
+        Assertions.assertEquals(ownPage1.getItems().size(), 1);
+        Assertions.assertEquals(ownPage1.getItems().get(0).getDescription(), "description3");
+        Assertions.assertNotNull(ownPage1.getNextCursor());
+        CursorPage<RequestDtoExtended> ownPage2 = requestService.getPageByUserId(users.get(1).getId(), ownPage1.getNextCursor(), 10);
+        Assertions.assertEquals(ownPage2.getItems().size(), 1);
+        Assertions.assertEquals(ownPage2.getItems().get(0).getItems().get(0).getName(), "name1");
+        Assertions.assertNull(ownPage2.getNextCursor());
+        Assertions.assertEquals(requestService.getPageByUserId(users.get(1).getId(), null, null).getItems().size(), 2);
+        Assertions.assertEquals(requestService.getAllByUserId(users.get(1).getId()).get(1).getItems().get(0).getName(), "name1");
+        Assertions.assertThrows(ValidationException.class, () -> requestService.getPageByUserId(users.get(1).getId(), null, 0));
+        Assertions.assertThrows(NotFoundException.class, () -> requestService.getPageByUserId(1000, null, 1));
     }
 
     @Test
@@ -790,7 +850,7 @@ class ShareItTests {
         TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
         List<Item> items = itemTypedQuery.getResultList();
         Booking booking1 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), items.get(0), users.get(1), APPROVED);
-        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
+        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
         bookingService.add(bookingMapper.toInDto(booking1), users.get(1).getId());
         bookingService.add(bookingMapper.toInDto(booking2), users.get(1).getId());
         TypedQuery<Booking> bookingTypedQuery = entityManager.createQuery(" from Booking b order by b.id", Booking.class);
@@ -821,7 +881,7 @@ class ShareItTests {
         TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
         List<Item> items = itemTypedQuery.getResultList();
         Booking booking1 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), items.get(0), users.get(1), APPROVED);
-        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
+        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
         bookingService.add(bookingMapper.toInDto(booking1), users.get(1).getId());
         bookingService.add(bookingMapper.toInDto(booking2), users.get(1).getId());
         TypedQuery<Booking> bookingTypedQuery = entityManager.createQuery(" from Booking b order by b.id", Booking.class);
@@ -860,14 +920,217 @@ class ShareItTests {
         TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
         List<Item> items = itemTypedQuery.getResultList();
         Assertions.assertEquals(items.size(), 2);
-        List<ItemDto> textItems = itemService.getAvailableByText("dESc", 0, 10);
+        List<ItemDto> textItems = itemService.getAvailableByText("dESc", 0, 10, "id", false);
         Assertions.assertEquals(textItems.size(), 2);
-        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("qwerty", -1, 10));
-        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("qwerty", 0, 0));
-        textItems = itemService.getAvailableByText("sdec", 0, 10);
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("qwerty", -1, 10, "id", false));
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("qwerty", 0, 0, "id", false));
+        textItems = itemService.getAvailableByText("sdec", 0, 10, "id", false);
         Assertions.assertEquals(textItems.size(), 0);
-        textItems = itemService.getAvailableByText("aMe1", 0, 10);
+        textItems = itemService.getAvailableByText("aMe1", 0, 10, "id", false);
+        Assertions.assertEquals(textItems.size(), 1);
+        textItems = itemService.getAvailableByText("desc", 1, 1, "id", false);
+        Assertions.assertEquals(textItems.size(), 1);
+        Assertions.assertEquals(textItems.get(0).getId(), items.get(1).getId());
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableByText("desc", 0, 10, "name", false));
+        textItems = itemService.getAvailableByText("nane2", 0, 10, "id", true);
+        Assertions.assertEquals(textItems.size(), 1);
+        Assertions.assertEquals(textItems.get(0).getId(), items.get(1).getId());
+        textItems = itemService.getAvailableByText("ame2", 0, 10, "relevance", false);
         Assertions.assertEquals(textItems.size(), 1);
+        Assertions.assertEquals(textItems.get(0).getId(), items.get(1).getId());
+        itemService.update(ItemDto.builder().available(false).build(), users.get(0).getId(), items.get(1).getId());
+        textItems = itemService.getAvailableByText("desc", null, null, "id", false);
+        Assertions.assertEquals(itemService.suggestNames("NA", 10), List.of("name1"));
+        Assertions.assertTrue(itemService.suggestNames(" ", 10).isEmpty());
+        Assertions.assertThrows(ValidationException.class, () -> itemService.suggestNames("na", 0));
+        Assertions.assertEquals(textItems.size(), 1);
+        Assertions.assertEquals(textItems.get(0).getId(), items.get(0).getId());
+    }
+
+    @Test
+    void itemSearchIndexTest() {
+        ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(mockItemRepository.findAllDtoByAvailable(true)).thenReturn(List.of(
+                new ItemDto(3, "Дрель", "Аккумуляторная дрель для ремонтов", true, 1, null),
+                new ItemDto(1, "Отвёртка", "Крестовая отвертка", true, 1, null),
+                new ItemDto(2, "Пила", "Дисковая пила по дереву", true, 2, 1)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ItemDocumentStore store = new ItemDocumentStore(mockItemRepository, meterRegistry, true);
+        ItemSearchIndex index = new ItemSearchIndex(store, meterRegistry);
+        Assertions.assertFalse(index.isReady());
+        store.rebuild();
+        Assertions.assertTrue(index.isReady());
+        Assertions.assertEquals(store.size(), 3);
+        Assertions.assertEquals(meterRegistry.get("shareit.items.search.index.size").gauge().value(), 3.0);
+        List<ItemDto> found = index.search("дРЕль", 0, Integer.MAX_VALUE, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 3);
+        found = index.search("ов", 0, Integer.MAX_VALUE, false);
+        Assertions.assertEquals(found.size(), 3);
+        Assertions.assertEquals(found.get(0).getId(), 1);
+        Assertions.assertEquals(found.get(2).getId(), 3);
+        found = index.search("ов", 1, 1, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 2);
+        Assertions.assertTrue(index.search("дрелька", 0, 10, false).isEmpty());
+        Assertions.assertTrue(index.search("отвертка", 0, 10, false).get(0).getDescription().startsWith("Крестовая"));
+        store.put(new ItemDto(2, "Пила", "Дисковая пила по дереву", false, 2, 1));
+        Assertions.assertTrue(index.search("пила", 0, 10, false).isEmpty());
+        store.put(new ItemDto(4, "Пила", "Ножовка", true, 2, null));
+        found = index.search("пила", 0, 10, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 4);
+        Assertions.assertEquals(store.size(), 3);
+        Assertions.assertEquals(meterRegistry.get("shareit.items.search").timer().count(), 7);
+    }
+
+    @Test
+    void itemSearchIndexSuggestTest() {
+        ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(mockItemRepository.findAllDtoByAvailable(true)).thenReturn(List.of(
+                new ItemDto(1, "Дрель-шуруповерт", "Аккумуляторная", true, 1, null),
+                new ItemDto(2, "Дрель", "Ударная дрель", true, 1, null),
+                new ItemDto(3, "дрель", "Ещё одна дрель", true, 2, null),
+                new ItemDto(4, "Ёлка искусственная", "Новогодняя", true, 2, null),
+                new ItemDto(5, "Дрожжи", "Не инструмент", true, 2, null)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ItemDocumentStore store = new ItemDocumentStore(mockItemRepository, meterRegistry, true);
+        store.rebuild();
+        ItemNameSuggester index = new ItemNameSuggester(store, meterRegistry);
+        Assertions.assertEquals(index.suggest("ДРЕ", 10), List.of("Дрель", "Дрель-шуруповерт"));
+        Assertions.assertEquals(index.suggest("др", 10), List.of("Дрель", "Дрель-шуруповерт", "Дрожжи"));
+        Assertions.assertEquals(index.suggest("др", 1), List.of("Дрель"));
+        Assertions.assertEquals(index.suggest("елк", 10), List.of("Ёлка искусственная"));
+        Assertions.assertTrue(index.suggest("пила", 10).isEmpty());
+        store.put(new ItemDto(2, "Дрель", "Ударная дрель", false, 1, null));
+        Assertions.assertEquals(index.suggest("дрель", 10), List.of("дрель", "Дрель-шуруповерт"));
+        store.put(new ItemDto(3, "Пила", "Ещё одна дрель", true, 2, null));
+        Assertions.assertEquals(index.suggest("дрель", 10), List.of("Дрель-шуруповерт"));
+        Assertions.assertEquals(index.suggest("пил", 10), List.of("Пила"));
+        Assertions.assertEquals(meterRegistry.get("shareit.items.suggest").timer().count(), 8);
+    }
+
+    @Test
+    void itemSearchIndexFuzzyTest() {
+        ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(mockItemRepository.findAllDtoByAvailable(true)).thenReturn(List.of(
+                new ItemDto(1, "Дрель", "Ударная дрель", true, 1, null),
+                new ItemDto(2, "Перфоратор", "Бурит бетон", true, 1, null),
+                new ItemDto(3, "Дрель-шуруповёрт", "Аккумуляторная", true, 2, null),
+                new ItemDto(4, "Пила", "Дисковая пила", true, 2, null)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ItemDocumentStore store = new ItemDocumentStore(mockItemRepository, meterRegistry, true);
+        ItemSearchIndex index = new ItemSearchIndex(store, meterRegistry);
+        ItemFuzzyIndex fuzzyIndex = new ItemFuzzyIndex(store, meterRegistry);
+        store.rebuild();
+        Assertions.assertTrue(index.search("дрэль", 0, 10, false).isEmpty());
+        List<ItemDto> found = fuzzyIndex.search("дрэль", 0, 10, false);
+        Assertions.assertEquals(found.size(), 2);
+        Assertions.assertEquals(found.get(0).getId(), 1);
+        Assertions.assertEquals(found.get(1).getId(), 3);
+        found = fuzzyIndex.search("пирфаратор", 0, 10, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 2);
+        Assertions.assertTrue(fuzzyIndex.search("пирфаратр", 0, 10, false).isEmpty());
+        found = fuzzyIndex.search("ДРЕЛ шуруповерт", 0, 10, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 3);
+        found = fuzzyIndex.search("удорная дрел", 0, 10, true);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 1);
+        found = fuzzyIndex.search("дрели", 1, 1, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 3);
+        Assertions.assertEquals(fuzzyIndex.search("пилы", 0, 10, false).size(), 1);
+        Assertions.assertTrue(fuzzyIndex.search("ла", 0, 10, false).isEmpty());
+        store.put(new ItemDto(4, "Пила", "Дисковая пила", false, 2, null));
+        Assertions.assertTrue(fuzzyIndex.search("пило", 0, 10, false).isEmpty());
+        Assertions.assertEquals(meterRegistry.get("shareit.items.search.fuzzy").timer().count(), 9);
+    }
+
+    @Test
+    void itemSearchIndexStemmingTest() {
+        ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(mockItemRepository.findAllDtoByAvailable(true)).thenReturn(List.of(
+                new ItemDto(1, "Дрель", "Ударная", true, 1, null),
+                new ItemDto(2, "Ёлка", "Искусственная ёлочка", true, 1, null),
+                new ItemDto(3, "Набор свёрл", "Для дрели", true, 2, null),
+                new ItemDto(4, "Палатка", "Четырёхместная палатка", true, 2, null)));
+        ItemDocumentStore store = new ItemDocumentStore(mockItemRepository, new SimpleMeterRegistry(), true);
+        ItemSearchIndex index = new ItemSearchIndex(store, new SimpleMeterRegistry());
+        store.rebuild();
+        List<ItemDto> found = index.search("дрели", 0, 10, false);
+        Assertions.assertEquals(found.size(), 2);
+        Assertions.assertEquals(found.get(0).getId(), 1);
+        Assertions.assertEquals(found.get(1).getId(), 3);
+        found = index.search("дрель", 0, 10, true);
+        Assertions.assertEquals(found.size(), 2);
+        Assertions.assertEquals(found.get(0).getId(), 1);
+        found = index.search("ЕЛКА", 0, 10, false);
+        Assertions.assertEquals(found.size(), 1);
+        Assertions.assertEquals(found.get(0).getId(), 2);
+        Assertions.assertEquals(index.search("сверл", 0, 10, false).get(0).getId(), 3);
+        Assertions.assertEquals(index.search("палатки ударные", 0, 10, false).size(), 0);
+        Assertions.assertEquals(index.search("палатки четырехместные", 0, 10, false).get(0).getId(), 4);
+        Assertions.assertEquals(index.search("палаткой", 1, 10, false).size(), 0);
+    }
+
+    @Test
+    void itemSearchIndexRelevanceTest() {
+        ItemRepository mockItemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(mockItemRepository.findAllDtoByAvailable(true)).thenReturn(List.of(
+                new ItemDto(1, "Чехол", "Чехол для переноски, подходит под любую дрель", true, 1, null),
+                new ItemDto(2, "Сверло", "Сверло по бетону, дрель", true, 1, null),
+                new ItemDto(3, "Дрель", "Ударная дрель", true, 2, null),
+                new ItemDto(4, "Дрель-шуруповерт", "Аккумуляторная", true, 2, null),
+                new ItemDto(5, "Пила", "Дисковая пила", true, 2, null)));
+        ItemDocumentStore store = new ItemDocumentStore(mockItemRepository, new SimpleMeterRegistry(), true);
+        ItemSearchIndex index = new ItemSearchIndex(store, new SimpleMeterRegistry());
+        store.rebuild();
+        List<ItemDto> found = index.search("дрель", 0, Integer.MAX_VALUE, true);
+        Assertions.assertEquals(found.size(), 4);
+        Assertions.assertEquals(found.get(0).getId(), 3);
+        Assertions.assertEquals(found.get(1).getId(), 4);
+        Assertions.assertEquals(found.get(2).getId(), 2);
+        Assertions.assertEquals(found.get(3).getId(), 1);
+        found = index.search("дрель", 1, 2, true);
+        Assertions.assertEquals(found.size(), 2);
+        Assertions.assertEquals(found.get(0).getId(), 4);
+        Assertions.assertEquals(found.get(1).getId(), 2);
+        Assertions.assertTrue(index.search("дрель", 4, 2, true).isEmpty());
+        found = index.search("дрель", 0, 10, false);
+        Assertions.assertEquals(found.get(0).getId(), 1);
+        Assertions.assertEquals(found.get(3).getId(), 4);
+        List<ItemMatch> matches = index.match("Дрель по бетону", 2, 10);
+        Assertions.assertEquals(matches.size(), 2);
+        Assertions.assertEquals(matches.get(0).getItem().getId(), 2);
+        Assertions.assertEquals(matches.get(1).getItem().getId(), 1);
+        Assertions.assertTrue(matches.get(0).getScore() > matches.get(1).getScore());
+        Assertions.assertEquals(index.match("Дрель по бетону", 2, 1).size(), 1);
+        Assertions.assertTrue(index.match("Молоток", null, 10).isEmpty());
+    }
+
+    @Test
+    void requestMatcherTest() {
+        userService.add(userMapper.toDto(new User(null, "name1", "user1@user.com")));
+        userService.add(userMapper.toDto(new User(null, "name2", "user2@user.com")));
+        List<User> users = entityManager.createQuery(" from User u order by u.id", User.class).getResultList();
+        ItemDto drill = itemService.add(itemMapper.toDto(new Item(null, "Дрель", "Ударная дрель для бетона", true, users.get(1), null)), users.get(1).getId());
+        itemService.add(itemMapper.toDto(new Item(null, "Пила", "Дисковая пила", true, users.get(1), null)), users.get(1).getId());
+        itemService.add(itemMapper.toDto(new Item(null, "Дрель", "Моя дрель", true, users.get(0), null)), users.get(0).getId());
+        RequestDto request = requestService.add(new RequestDto(null, "Нужна дрель, чтобы просверлить бетон", null, null), users.get(0).getId());
+        Assertions.assertTrue(requestService.getSuggestions(request.getId(), users.get(0).getId()).isEmpty());
+        Assertions.assertEquals(requestMatcher.match(new RequestCreatedEvent(request.getId(), users.get(0).getId(), request.getDescription())), 1);
+        List<RequestSuggestionDto> suggestions = requestService.getSuggestions(request.getId(), users.get(0).getId());
+        Assertions.assertEquals(suggestions.size(), 1);
+        Assertions.assertEquals(suggestions.get(0).getItemId(), drill.getId());
+        Assertions.assertTrue(suggestions.get(0).getScore() > 0);
+        Assertions.assertEquals(requestMatcher.match(new RequestCreatedEvent(request.getId(), users.get(0).getId(), request.getDescription())), 1);
+        Assertions.assertEquals(requestService.getSuggestions(request.getId(), users.get(0).getId()).size(), 1);
+        Assertions.assertEquals(requestMatcher.match(new RequestCreatedEvent(1000, users.get(0).getId(), "дрель")), 0);
+        Assertions.assertThrows(ForbiddenException.class, () -> requestService.getSuggestions(request.getId(), users.get(1).getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> requestService.getSuggestions(1000, users.get(0).getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> requestService.getSuggestions(request.getId(), 1000));
     }
 
     @Test
@@ -889,7 +1152,7 @@ class ShareItTests {
         TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
         List<Item> items = itemTypedQuery.getResultList();
         Booking booking1 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), items.get(0), users.get(1), APPROVED);
-        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
+        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
         bookingService.add(bookingMapper.toInDto(booking1), users.get(1).getId());
         bookingService.add(bookingMapper.toInDto(booking2), users.get(1).getId());
         TypedQuery<Booking> bookingTypedQuery = entityManager.createQuery(" from Booking b order by b.id", Booking.class);
@@ -931,7 +1194,7 @@ class ShareItTests {
         TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
         List<Item> items = itemTypedQuery.getResultList();
         Booking booking1 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), items.get(0), users.get(1), APPROVED);
-        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
+        Booking booking2 = new Booking(null, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3), items.get(0), users.get(1), APPROVED);
         bookingService.add(bookingMapper.toInDto(booking1), users.get(1).getId());
         bookingService.add(bookingMapper.toInDto(booking2), users.get(1).getId());
         TypedQuery<Booking> bookingTypedQuery = entityManager.createQuery(" from Booking b order by b.id", Booking.class);
@@ -957,6 +1220,255 @@ class ShareItTests {
         Assertions.assertEquals(testBookings.size(), 1);
     }
 
+    @Test
+    void bookingServiceOverlapTest() {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        Item item1 = new Item(null, "name1", "description1", true, users.get(0), null);
+        itemService.add(itemMapper.toDto(item1), users.get(0).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        LocalDateTime start = LocalDateTime.now().plusHours(1);
+        Booking booking1 = new Booking(null, start, start.plusHours(2), items.get(0), users.get(1), WAITING);
+        Booking booking2 = new Booking(null, start.plusHours(1), start.plusHours(3), items.get(0), users.get(1), WAITING);
+        Booking booking3 = new Booking(null, start.minusMinutes(30), start.plusMinutes(30), items.get(0), users.get(1), WAITING);
+        Booking booking4 = new Booking(null, start.plusHours(2), start.plusHours(3), items.get(0), users.get(1), WAITING);
+        BookingDtoExtended added = bookingService.add(bookingMapper.toInDto(booking1), users.get(1).getId());
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.add(bookingMapper.toInDto(booking2), users.get(1).getId()));
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.add(bookingMapper.toInDto(booking3), users.get(1).getId()));
+        bookingService.add(bookingMapper.toInDto(booking4), users.get(1).getId());
+        bookingService.approve(added.getId(), false, users.get(0).getId());
+        bookingService.add(bookingMapper.toInDto(booking3), users.get(1).getId());
+        List<BookingDtoExtended> testBookings = bookingService.getAllByUserId(users.get(1).getId(), "ALL", 0, 10);
+        Assertions.assertEquals(testBookings.size(), 3);
+    }
+
+    @Test
+    void bookingIntervalIndexRebuildTest() {
+        BookingRepository mockBookingRepository = Mockito.mock(BookingRepository.class);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        Mockito.when(mockBookingRepository.findAllPeriodsByStatusInAndEndIsAfter(Mockito.anyList(), Mockito.any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        new BookingPeriod(1, 1, start.plusHours(10), start.plusHours(12)),
+                        new BookingPeriod(2, 1, start.plusHours(5), start.plusHours(30))));
+        BookingIntervalIndex index = new BookingIntervalIndex(mockBookingRepository);
+        index.rebuild();
+        Assertions.assertNull(index.reserve(1, start.plusHours(13), start.plusHours(14)));
+        Assertions.assertNull(index.reserve(1, start, start.plusHours(6)));
+        Assertions.assertNotNull(index.reserve(1, start.plusHours(30), start.plusHours(31)));
+        Assertions.assertNotNull(index.reserve(2, start.plusHours(13), start.plusHours(14)));
+    }
+
+    @Test
+    void bookingServiceGetPageTest() {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        Item item1 = new Item(null, "name1", "description1", true, users.get(0), null);
+        itemService.add(itemMapper.toDto(item1), users.get(0).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).plusHours(1);
+        for (int i = 0; i < 3; i++) {
+            Booking booking = new Booking(null, start.plusHours(i), start.plusHours(i + 1), items.get(0), users.get(1), WAITING);
+            bookingService.add(bookingMapper.toInDto(booking), users.get(1).getId());
+        }
+        CursorPage<BookingDtoExtended> page1 = bookingService.getPageByUserId(users.get(1).getId(), "ALL", "", 2);
+        Assertions.assertEquals(page1.getItems().size(), 2);
+        Assertions.assertEquals(page1.getItems().get(0).getStart(), start.plusHours(2));
+        Assertions.assertNotNull(page1.getNextCursor());
+        CursorPage<BookingDtoExtended> page2 = bookingService.getPageByUserId(users.get(1).getId(), "ALL", page1.getNextCursor(), 2);
+        Assertions.assertEquals(page2.getItems().size(), 1);
+        Assertions.assertEquals(page2.getItems().get(0).getStart(), start);
+        Assertions.assertNull(page2.getNextCursor());
+        CursorPage<BookingDtoExtended> ownerPage = bookingService.getPageForItems(users.get(0).getId(), "WAITING", null, null);
+        Assertions.assertEquals(ownerPage.getItems().size(), 3);
+        Assertions.assertNull(ownerPage.getNextCursor());
+        Assertions.assertEquals(bookingService.getPageForItems(users.get(0).getId(), "PAST", null, null).getItems().size(), 0);
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.getPageByUserId(users.get(1).getId(), "ALL", "cursor", 2));
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.getPageByUserId(users.get(1).getId(), "ALL", null, 0));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getPageForItems(1000, "ALL", null, 2));
+        Assertions.assertEquals(bookingService.getCountsForItems(users.get(0).getId()).getWaiting(), 3);
+        Assertions.assertEquals(bookingService.getCountsByUserId(users.get(1).getId()).getFuture(), 3);
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getCountsByUserId(1000));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getCountsForItems(1000));
+    }
+
+    @Test
+    void bookingServiceAddAllTest() {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        itemService.add(itemMapper.toDto(new Item(null, "name1", "description1", true, users.get(0), null)), users.get(0).getId());
+        itemService.add(itemMapper.toDto(new Item(null, "name2", "description2", false, users.get(0), null)), users.get(0).getId());
+        itemService.add(itemMapper.toDto(new Item(null, "name3", "description3", true, users.get(1), null)), users.get(1).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        LocalDateTime start = LocalDateTime.now().plusHours(1);
+        List<BookingDto> bookingDtos = List.of(
+                new BookingDto(null, start, start.plusHours(1), items.get(0).getId(), null, null),
+                new BookingDto(null, start.plusMinutes(30), start.plusHours(2), items.get(0).getId(), null, null),
+                new BookingDto(null, start.plusHours(1), start.plusHours(2), items.get(0).getId(), null, null),
+                new BookingDto(null, start, start.plusHours(1), items.get(1).getId(), null, null),
+                new BookingDto(null, start, start.plusHours(1), items.get(2).getId(), null, null),
+                new BookingDto(null, start, start.plusHours(1), 1000, null, null),
+                new BookingDto(null, start, null, items.get(0).getId(), null, null));
+        List<BookingBatchResultDto> results = bookingService.addAll(bookingDtos, users.get(1).getId());
+        Assertions.assertEquals(results.size(), 7);
+        Assertions.assertNotNull(results.get(0).getBooking().getId());
+        Assertions.assertNotNull(results.get(1).getError());
+        Assertions.assertNotNull(results.get(2).getBooking().getId());
+        for (int i = 3; i < 7; i++) {
+            Assertions.assertEquals(results.get(i).getIndex(), i);
+            Assertions.assertNull(results.get(i).getBooking());
+            Assertions.assertNotNull(results.get(i).getError());
+        }
+        BookingDtoExtended saved = bookingService.get(results.get(2).getBooking().getId(), users.get(0).getId());
+        Assertions.assertEquals(saved.getStatus(), WAITING);
+        Assertions.assertEquals(saved.getBooker().getId(), users.get(1).getId());
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.add(bookingDtos.get(1), users.get(1).getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.addAll(bookingDtos, 1000));
+    }
+
+    @Test
+    void bookingServiceApproveAllTest() {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        itemService.add(itemMapper.toDto(new Item(null, "name1", "description1", true, users.get(0), null)), users.get(0).getId());
+        itemService.add(itemMapper.toDto(new Item(null, "name2", "description2", true, users.get(1), null)), users.get(1).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        LocalDateTime start = LocalDateTime.now().plusHours(1);
+        BookingDto bookingDto1 = new BookingDto(null, start, start.plusHours(1), items.get(0).getId(), null, null);
+        BookingDto bookingDto2 = new BookingDto(null, start.plusHours(1), start.plusHours(2), items.get(0).getId(), null, null);
+        BookingDto bookingDto3 = new BookingDto(null, start, start.plusHours(1), items.get(1).getId(), null, null);
+        Integer id1 = bookingService.add(bookingDto1, users.get(1).getId()).getId();
+        Integer id2 = bookingService.add(bookingDto2, users.get(1).getId()).getId();
+        Integer id3 = bookingService.add(bookingDto3, users.get(0).getId()).getId();
+        List<Integer> rejected = bookingService.approveAll(List.of(id1, id2, id3, 1000), false, users.get(0).getId());
+        Assertions.assertEquals(rejected.size(), 2);
+        Assertions.assertTrue(rejected.containsAll(List.of(id1, id2)));
+        Assertions.assertEquals(bookingService.get(id1, users.get(0).getId()).getStatus(), BookingStatus.REJECTED);
+        Assertions.assertEquals(bookingService.get(id3, users.get(1).getId()).getStatus(), WAITING);
+        Assertions.assertEquals(bookingService.approveAll(List.of(id1, id2), true, users.get(0).getId()).size(), 0);
+        Integer id4 = bookingService.add(bookingDto1, users.get(1).getId()).getId();
+        Assertions.assertEquals(bookingService.approveAll(List.of(id4), true, users.get(0).getId()), List.of(id4));
+        Assertions.assertEquals(bookingService.get(id4, users.get(0).getId()).getStatus(), APPROVED);
+        Assertions.assertEquals(bookingService.approveAll(List.of(), true, users.get(0).getId()).size(), 0);
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.approveAll(List.of(id3), true, 1000));
+    }
+
+    @Test
+    void bookingExpiryJobTest() {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        itemService.add(itemMapper.toDto(new Item(null, "name1", "description1", true, users.get(0), null)), users.get(0).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        LocalDateTime now = LocalDateTime.now();
+        Booking stale1 = bookingRepository.saveAndFlush(new Booking(null, now.minusHours(3), now.minusHours(2), items.get(0), users.get(1), WAITING));
+        Booking stale2 = bookingRepository.saveAndFlush(new Booking(null, now.minusHours(1), now.plusHours(1), items.get(0), users.get(1), WAITING));
+        Booking approved = bookingRepository.saveAndFlush(new Booking(null, now.minusHours(5), now.minusHours(4), items.get(0), users.get(1), APPROVED));
+        Integer future = bookingService.add(new BookingDto(null, now.plusHours(2), now.plusHours(3), items.get(0).getId(), null, null), users.get(1).getId()).getId();
+        bookingIntervalIndex.rebuild();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BookingExpiryJob job = new BookingExpiryJob(bookingRepository, bookingIntervalIndex, itemRepository, transactionManager, eventPublisher, meterRegistry, 1);
+        job.expire();
+        Assertions.assertEquals(bookingService.get(stale1.getId(), users.get(0).getId()).getStatus(), BookingStatus.EXPIRED);
+        Assertions.assertEquals(bookingService.get(stale2.getId(), users.get(0).getId()).getStatus(), BookingStatus.EXPIRED);
+        Assertions.assertEquals(bookingService.get(approved.getId(), users.get(0).getId()).getStatus(), APPROVED);
+        Assertions.assertEquals(bookingService.get(future, users.get(0).getId()).getStatus(), WAITING);
+        Assertions.assertEquals(meterRegistry.get("shareit.bookings.expired").counter().count(), 2.0);
+        Assertions.assertTrue(meterRegistry.get("shareit.bookings.expiry.lag").gauge().value() >= 3 * 60 * 60 - 1);
+        Assertions.assertEquals(bookingService.getAllForItems(users.get(0).getId(), "WAITING", null, null).size(), 1);
+        bookingService.add(new BookingDto(null, now.plusMinutes(30), now.plusMinutes(90), items.get(0).getId(), null, null), users.get(1).getId());
+        job.expire();
+        Assertions.assertEquals(meterRegistry.get("shareit.bookings.expired").counter().count(), 2.0);
+        Assertions.assertEquals(meterRegistry.get("shareit.bookings.expiry.lag").gauge().value(), 0.0);
+    }
+
+    @Test
+    void itemAvailabilityServiceTest() {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        itemService.add(itemMapper.toDto(new Item(null, "name1", "description1", true, users.get(0), null)), users.get(0).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        Integer itemId = items.get(0).getId();
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusDays(1);
+        LocalDateTime to = from.plusDays(1);
+        Integer id1 = bookingService.add(new BookingDto(null, from.minusHours(2), from.plusHours(2), itemId, null, null), users.get(1).getId()).getId();
+        Integer id2 = bookingService.add(new BookingDto(null, from.plusHours(2), from.plusHours(4), itemId, null, null), users.get(1).getId()).getId();
+        bookingService.add(new BookingDto(null, from.plusHours(6), from.plusHours(8), itemId, null, null), users.get(1).getId());
+        bookingService.approve(id1, true, users.get(0).getId());
+        bookingService.approve(id2, true, users.get(0).getId());
+        ItemAvailabilityDto approved = itemAvailabilityService.get(itemId, from, to, false);
+        Assertions.assertEquals(approved.getBusy(), List.of(new IntervalDto(from, from.plusHours(4))));
+        Assertions.assertEquals(approved.getFree(), List.of(new IntervalDto(from.plusHours(4), to)));
+        ItemAvailabilityDto withWaiting = itemAvailabilityService.get(itemId, from, to, true);
+        Assertions.assertEquals(withWaiting.getBusy(), List.of(new IntervalDto(from, from.plusHours(4)), new IntervalDto(from.plusHours(6), from.plusHours(8))));
+        Assertions.assertEquals(withWaiting.getFree(), List.of(new IntervalDto(from.plusHours(4), from.plusHours(6)), new IntervalDto(from.plusHours(8), to)));
+        Assertions.assertSame(itemAvailabilityService.get(itemId, from, to, false), approved);
+        Integer id4 = bookingService.add(new BookingDto(null, to.minusHours(1), to.plusHours(1), itemId, null, null), users.get(1).getId()).getId();
+        bookingService.approve(id4, true, users.get(0).getId());
+        ItemAvailabilityDto changed = itemAvailabilityService.get(itemId, from, to, false);
+        Assertions.assertEquals(changed.getBusy(), List.of(new IntervalDto(from, from.plusHours(4)), new IntervalDto(to.minusHours(1), to)));
+        Assertions.assertEquals(changed.getFree(), List.of(new IntervalDto(from.plusHours(4), to.minusHours(1))));
+        Assertions.assertThrows(ValidationException.class, () -> itemAvailabilityService.get(itemId, to, from, false));
+        Assertions.assertThrows(NotFoundException.class, () -> itemAvailabilityService.get(1000, from, to, false));
+    }
+
+    @Test
+    void bookingServiceExportTest() throws IOException {
+        User user1 = new User(null, "name1", "user1@user.com");
+        User user2 = new User(null, "name2", "user2@user.com");
+        userService.add(userMapper.toDto(user1));
+        userService.add(userMapper.toDto(user2));
+        TypedQuery<User> query = entityManager.createQuery(" from User u order by u.id", User.class);
+        List<User> users = query.getResultList();
+        Item item1 = new Item(null, "name1", "description1", true, users.get(0), null);
+        itemService.add(itemMapper.toDto(item1), users.get(0).getId());
+        TypedQuery<Item> itemTypedQuery = entityManager.createQuery(" from Item i order by i.id", Item.class);
+        List<Item> items = itemTypedQuery.getResultList();
+        LocalDateTime start = LocalDateTime.now().plusHours(1);
+        for (int i = 0; i < 3; i++) {
+            Booking booking = new Booking(null, start.plusHours(i), start.plusHours(i + 1), items.get(0), users.get(1), WAITING);
+            bookingService.add(bookingMapper.toInDto(booking), users.get(1).getId());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookingService.exportForItems(users.get(0).getId(), "ALL").writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(lines.length, 3);
+        Assertions.assertTrue(lines[0].startsWith("{") && lines[0].contains("\"booker\":{\"id\":" + users.get(1).getId()));
+        out.reset();
+        bookingService.exportByUserId(users.get(0).getId(), "ALL").writeTo(out);
+        Assertions.assertEquals(out.size(), 0);
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.exportByUserId(1000, "ALL"));
+        Assertions.assertThrows(UnsupportedException.class, () -> bookingService.exportForItems(users.get(0).getId(), "UNKNOWN"));
+    }
+
 
     @Test
     void commentTest() {